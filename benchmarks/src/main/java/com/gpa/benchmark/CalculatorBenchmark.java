@@ -0,0 +1,84 @@
+package com.gpa.benchmark;
+
+import com.gpa.model.Course;
+import com.gpa.service.GPACalculator;
+import com.gpa.service.GPASummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// GPA计算和分组：calculate*读取的是随快照发布的统计结果，recomputeSummary为全量扫描，toggleCourse为单门课程的增量更新
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+    @Param({"10", "1000", "10000", "100000"})
+    public int courseCount;
+
+    private GPACalculator calculator;
+    private int nextToggle;
+
+    @Setup
+    public void setUp() throws IOException {
+        calculator = CourseData.calculator(courseCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        calculator.close();
+    }
+
+    @Benchmark
+    public void calculateAll(Blackhole blackhole) {
+        blackhole.consume(calculator.calculateAverageScore());
+        blackhole.consume(calculator.calculateStandardFiveGPA());
+        blackhole.consume(calculator.calculateStandardFourGPA());
+        blackhole.consume(calculator.calculatePKUGPA());
+        blackhole.consume(calculator.calculateDGUTGPA());
+        blackhole.consume(calculator.calculateMajorAverageScore());
+        blackhole.consume(calculator.calculatePoliticalAverageScore());
+        blackhole.consume(calculator.calculateQualityAverageScore());
+        blackhole.consume(calculator.calculateGeneralAverageScore());
+    }
+
+    @Benchmark
+    public GPASummary recomputeSummary() {
+        return calculator.recomputeSummary();
+    }
+
+    // 依次切换不同课程，包括增量统计和发布新快照（需复制一次课程数组）
+    @Benchmark
+    public GPASummary toggleCourse() {
+        calculator.toggleCourseSelection(nextToggle);
+        nextToggle = (nextToggle + 7919) % courseCount;
+        return calculator.summarize();
+    }
+
+    @Benchmark
+    public Map<String, List<Course>> coursesBySemester() {
+        return calculator.getCoursesBySemester();
+    }
+
+    @Benchmark
+    public Map<Course.CourseType, List<Course>> coursesByType() {
+        return calculator.getCoursesByType();
+    }
+}
@@ -0,0 +1,64 @@
+package com.gpa.benchmark;
+
+import com.gpa.model.Course;
+import com.gpa.service.DiscardingRepository;
+import com.gpa.service.GPACalculator;
+import com.gpa.service.GradingScales;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// 基准测试用的合成课程数据：固定种子，同样的数量每次生成完全相同的课程
+public final class CourseData {
+    public static final long SEED = 20250701L;
+
+    private static final String[] SUBJECTS = {
+        "高等数学", "线性代数", "概率论与数理统计", "大学英语", "大学物理", "程序设计基础",
+        "数据结构", "操作系统", "计算机网络", "数据库原理", "编译原理", "软件工程",
+        "马克思主义基本原理", "中国近现代史纲要", "思想道德与法治", "形势与政策",
+        "体育", "大学生心理健康", "创新创业基础", "艺术鉴赏", "Java Programming", "Machine Learning"
+    };
+    // 类型分布大致按培养方案：专业课最多，其次通识课
+    private static final Course.CourseType[] TYPE_WEIGHTS = {
+        Course.CourseType.MAJOR, Course.CourseType.MAJOR, Course.CourseType.MAJOR, Course.CourseType.MAJOR,
+        Course.CourseType.GENERAL, Course.CourseType.GENERAL, Course.CourseType.POLITICAL, Course.CourseType.QUALITY
+    };
+    private static final int SEMESTER_COUNT = 8;
+
+    private CourseData() {
+    }
+
+    public static List<Course> generate(int count) {
+        return generate(count, SEED);
+    }
+
+    public static List<Course> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<Course> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = SUBJECTS[random.nextInt(SUBJECTS.length)] + (i / SUBJECTS.length + 1);
+            double credit = 0.5 * (1 + random.nextInt(10));
+            double score = 40 + random.nextInt(61) + (random.nextBoolean() ? 0.5 : 0);
+            boolean selected = random.nextInt(10) != 0;
+            courses.add(new Course(name, credit, Math.min(score, 100), selected,
+                semester(random.nextInt(SEMESTER_COUNT)), TYPE_WEIGHTS[random.nextInt(TYPE_WEIGHTS.length)]));
+        }
+        return courses;
+    }
+
+    // 第index个学期的名称，例如2020-2021-1
+    public static String semester(int index) {
+        int year = 2020 + index / 2;
+        return year + "-" + (year + 1) + "-" + (index % 2 + 1);
+    }
+
+    // 已载入count门课程、不读写任何文件的计算器
+    public static GPACalculator calculator(int count) throws IOException {
+        GPACalculator calculator = new GPACalculator(GradingScales.load(), new DiscardingRepository());
+        calculator.load();
+        calculator.addCourses(generate(count));
+        return calculator;
+    }
+}
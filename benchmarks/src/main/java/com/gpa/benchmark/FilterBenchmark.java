@@ -0,0 +1,89 @@
+package com.gpa.benchmark;
+
+import com.gpa.model.Course;
+import com.gpa.service.CourseFilter;
+import com.gpa.service.CourseSearchIndex;
+import com.gpa.service.CourseStore;
+import com.gpa.service.GPACalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// 课程表格的筛选逻辑（界面中filterCourses所用的CourseFilter），不需要图形界面
+// 搜索索引会缓存上一次查询，这里每次交替使用两个关键字，测得的是未命中缓存的查询
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+    private static final String OTHER_KEYWORD = "程序设计";
+
+    @Param({"1000", "100000"})
+    public int courseCount;
+
+    // 空字符串表示只按学期和类型筛选
+    @Param({"", "数学", "数据结构12", "learning"})
+    public String keyword;
+
+    private GPACalculator calculator;
+    private CourseStore store;
+    private CourseSearchIndex searchIndex;
+    private int[] rows;
+    private boolean alternate;
+
+    @Setup
+    public void setUp() throws IOException {
+        calculator = CourseData.calculator(courseCount);
+        store = calculator.getCourseStore();
+        searchIndex = calculator.getSearchIndex();
+        rows = new int[courseCount];
+    }
+
+    @TearDown
+    public void tearDown() {
+        calculator.close();
+    }
+
+    private String nextKeyword() {
+        alternate = !alternate;
+        return alternate || keyword.isEmpty() ? keyword : OTHER_KEYWORD;
+    }
+
+    @Benchmark
+    public int filterAllSemesters() {
+        return new CourseFilter(store, searchIndex, null, null, nextKeyword()).select(rows);
+    }
+
+    @Benchmark
+    public int filterSemesterAndType() {
+        return new CourseFilter(store, searchIndex, CourseData.semester(3), Course.CourseType.MAJOR, nextKeyword())
+            .select(rows);
+    }
+
+    // 增删改课程时逐条判断是否匹配的路径
+    @Benchmark
+    public int matchEachCourse() {
+        CourseFilter filter = new CourseFilter(store, searchIndex, CourseData.semester(3), null, keyword);
+        int matched = 0;
+        for (int i = 0; i < store.size(); i++) {
+            if (filter.matches(i)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,96 @@
+package com.gpa.service;
+
+import com.gpa.benchmark.CourseData;
+import com.gpa.model.Course;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Excel读写和二进制快照：位于com.gpa.service包中以便直接调用包内的读写类，不经过存储的日志和后台保存
+// 保存按ExcelCourseRepository的AUTO规则选择常规或流式模式
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int courseCount;
+
+    private List<Course> courses;
+    private File directory;
+    private File workbook;
+    private File snapshot;
+    private File output;
+    private boolean streaming;
+
+    @Setup
+    public void setUp() throws IOException {
+        courses = CourseData.generate(courseCount);
+        streaming = courseCount >= ExcelCourseRepository.STREAMING_THRESHOLD;
+        directory = Files.createTempDirectory("gpa-bench").toFile();
+        workbook = new File(directory, "score.xlsx");
+        snapshot = new File(directory, "score.xlsx.bin");
+        output = new File(directory, "output.xlsx");
+        ExcelCourseWriter.write(courses, workbook, streaming, 0);
+        BinaryCourseSnapshot.write(snapshot, workbook, courses, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void saveWorkbook() throws IOException {
+        ExcelCourseWriter.write(courses, output, streaming, 0);
+    }
+
+    // 默认的SAX事件流读取
+    @Benchmark
+    public long loadStreaming(Blackhole blackhole) throws IOException {
+        return ExcelCourseReader.read(workbook, blackhole::consume);
+    }
+
+    // 原有的整个工作簿载入内存的读取方式，用于对比
+    @Benchmark
+    public long loadWorkbook(Blackhole blackhole) throws IOException {
+        return ExcelCourseReader.readWithWorkbook(workbook, blackhole::consume);
+    }
+
+    // 启动时优先使用的二进制快照
+    @Benchmark
+    public BinaryCourseSnapshot.Loaded loadSnapshot() {
+        return BinaryCourseSnapshot.read(snapshot, workbook);
+    }
+
+    // 保存后重新读取的完整往返
+    @Benchmark
+    public List<Course> roundTrip() throws IOException {
+        ExcelCourseWriter.write(courses, output, streaming, 0);
+        return ExcelCourseReader.readAll(output);
+    }
+}
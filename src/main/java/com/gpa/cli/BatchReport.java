@@ -0,0 +1,241 @@
+package com.gpa.cli;
+
+import com.gpa.model.Course;
+import com.gpa.service.ExcelCourseRepository;
+import com.gpa.service.GPASummary;
+import com.gpa.service.GradingScale;
+import com.gpa.service.GradingScales;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 无界面批量统计：读取目录下所有学生的成绩工作簿，在ForkJoinPool上并行计算，输出一份汇总CSV
+// 用法：java -cp gpa-calculator-jar-with-dependencies.jar com.gpa.cli.BatchReport <目录> [输出文件] [--threads N]
+public final class BatchReport {
+    private static final String DEFAULT_OUTPUT = "gpa-report.csv";
+    private static final int FILES_PER_TASK = 8; // 每个子任务至少处理的文件数，文件更少时不再拆分
+
+    private final List<GradingScale> scales;
+
+    public BatchReport(List<GradingScale> scales) {
+        this.scales = scales;
+    }
+
+    // 单个学生的统计结果；读取失败时error不为空
+    public static final class Entry {
+        private final String student;
+        private final int courseCount;
+        private final GPASummary summary;
+        private final String error;
+
+        Entry(String student, int courseCount, GPASummary summary, String error) {
+            this.student = student;
+            this.courseCount = courseCount;
+            this.summary = summary;
+            this.error = error;
+        }
+
+        public String getStudent() { return student; }
+
+        public int getCourseCount() { return courseCount; }
+
+        public GPASummary getSummary() { return summary; }
+
+        public String getError() { return error; }
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        Path root = null;
+        Path output = Paths.get(DEFAULT_OUTPUT);
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (root == null) {
+                    root = Paths.get(args[i]);
+                } else {
+                    output = Paths.get(args[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            root = null;
+        }
+        if (root == null || threads < 1 || !Files.isDirectory(root)) {
+            System.err.println("用法：BatchReport <成绩工作簿目录> [输出文件，默认" + DEFAULT_OUTPUT + "] [--threads N]");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            List<Path> files = findWorkbooks(root);
+            BatchReport report = new BatchReport(GradingScales.load());
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            Entry[] entries;
+            try {
+                entries = report.process(root, files, pool);
+            } finally {
+                pool.shutdown();
+            }
+            report.write(output, entries);
+            printStats(entries, threads, System.nanoTime() - start, output);
+        } catch (IOException e) {
+            System.err.println("批量统计失败：" + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // 递归查找目录下的xlsx文件（跳过Excel打开文件时生成的~$临时文件），按路径排序保证报表顺序稳定
+    static List<Path> findWorkbooks(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths
+                .filter(Files::isRegularFile)
+                .filter(p -> {
+                    String name = p.getFileName().toString();
+                    return name.toLowerCase(Locale.ROOT).endsWith(".xlsx") && !name.startsWith("~$");
+                })
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    // 结果按files的顺序存放
+    public Entry[] process(Path root, List<Path> files, ForkJoinPool pool) {
+        Entry[] entries = new Entry[files.size()];
+        pool.invoke(new ProcessTask(root, files, entries, 0, files.size()));
+        return entries;
+    }
+
+    // 读取一个工作簿并统计，同时计入旁边score.xlsx.journal中尚未合并的修改；文件内个别无法解析的行由读取器跳过
+    Entry process(Path root, Path file) {
+        String student = studentName(root, file);
+        try {
+            List<Course> courses = ExcelCourseRepository.readCurrent(file.toFile());
+            return new Entry(student, courses.size(), GPASummary.of(scales, courses), null);
+        } catch (IOException | RuntimeException e) {
+            return new Entry(student, 0, null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    // 学生标识取相对路径：每人一个目录时（xxx/score.xlsx）取目录，否则取去掉扩展名的文件名
+    static String studentName(Path root, Path file) {
+        Path relative = root.relativize(file);
+        String name = relative.getFileName().toString();
+        if ("score.xlsx".equalsIgnoreCase(name) && relative.getParent() != null) {
+            relative = relative.getParent();
+        } else {
+            relative = relative.resolveSibling(name.substring(0, name.length() - ".xlsx".length()));
+        }
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
+    // 汇总表：学生、课程数、各算法结果、各课程类型均分、错误信息；带BOM以便Excel正确识别UTF-8
+    public void write(Path output, Entry[] entries) throws IOException {
+        Course.CourseType[] types = Course.CourseType.values();
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8))) {
+            out.write('\uFEFF');
+            StringBuilder line = new StringBuilder("学生,课程数");
+            for (GradingScale scale : scales) {
+                line.append(',').append(csv(scale.getName()));
+            }
+            for (Course.CourseType type : types) {
+                line.append(',').append(csv(type.getDisplayName() + "均分"));
+            }
+            line.append(",错误\n");
+            out.write(line.toString());
+
+            for (Entry entry : entries) {
+                line.setLength(0);
+                line.append(csv(entry.student)).append(',').append(entry.courseCount);
+                for (int s = 0; s < scales.size(); s++) {
+                    line.append(',');
+                    if (entry.summary != null) {
+                        line.append(String.format(Locale.ROOT, "%.2f", entry.summary.getGradePoint(s)));
+                    }
+                }
+                for (Course.CourseType type : types) {
+                    line.append(',');
+                    if (entry.summary != null) {
+                        line.append(String.format(Locale.ROOT, "%.2f", entry.summary.getTypeAverageScore(type)));
+                    }
+                }
+                line.append(',');
+                if (entry.error != null) {
+                    line.append(csv(entry.error));
+                }
+                line.append('\n');
+                out.write(line.toString());
+            }
+        }
+    }
+
+    private static void printStats(Entry[] entries, int threads, long elapsedNanos, Path output) {
+        int failed = 0;
+        long courses = 0;
+        for (Entry entry : entries) {
+            if (entry.error != null) {
+                failed++;
+            }
+            courses += entry.courseCount;
+        }
+        double seconds = Math.max(elapsedNanos / 1e9, 1e-9);
+        System.out.printf("已处理%d个工作簿（失败%d个），共%d门课程，线程数%d%n", entries.length, failed, courses, threads);
+        System.out.printf("耗时%.2f秒，%.1f个工作簿/秒，%.0f门课程/秒%n", seconds, entries.length / seconds, courses / seconds);
+        System.out.println("报表已写入：" + output.toAbsolutePath());
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // 按下标区间二分拆分，直到区间足够小再顺序处理
+    private final class ProcessTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path root;
+        private final List<Path> files;
+        private final Entry[] entries;
+        private final int from;
+        private final int to;
+
+        ProcessTask(Path root, List<Path> files, Entry[] entries, int from, int to) {
+            this.root = root;
+            this.files = files;
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    entries[i] = process(root, files.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ProcessTask(root, files, entries, from, mid),
+                new ProcessTask(root, files, entries, mid, to));
+        }
+    }
+}
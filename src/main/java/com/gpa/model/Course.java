@@ -1,6 +1,11 @@
 package com.gpa.model;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Course {
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id; // 本次运行内唯一的课程编号，复制时保留
     private String name;
     private double credit;
     private double score;
@@ -9,6 +14,7 @@ public class Course {
     private CourseType courseType; // 课程类型
     private boolean isMajorCourse; // 是否是专业课
     private int originalIndex; // 添加原始索引字段
+    private boolean readOnly; // 计算器保存和发布的课程为只读，修改时先copy()
 
     public enum CourseType {
         MAJOR("专业课程"),
@@ -28,6 +34,12 @@ public class Course {
     }
 
     public Course(String name, double credit, double score, boolean selected, String semester, CourseType courseType) {
+        this(NEXT_ID.getAndIncrement(), name, credit, score, selected, semester, courseType);
+    }
+
+    // 使用已有编号创建课程，用于生成同一课程的副本或视图
+    public Course(long id, String name, double credit, double score, boolean selected, String semester, CourseType courseType) {
+        this.id = id;
         this.name = name;
         this.credit = credit;
         this.score = score;
@@ -38,29 +50,60 @@ public class Course {
     }
 
     // Getters and Setters
+    public long getId() { return id; }
+
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { checkWritable(); this.name = name; }
     
     public double getCredit() { return credit; }
-    public void setCredit(double credit) { this.credit = credit; }
+    public void setCredit(double credit) { checkWritable(); this.credit = credit; }
     
     public double getScore() { return score; }
-    public void setScore(double score) { this.score = score; }
+    public void setScore(double score) { checkWritable(); this.score = score; }
     
     public boolean isSelected() { return selected; }
-    public void setSelected(boolean selected) { this.selected = selected; }
+    public void setSelected(boolean selected) { checkWritable(); this.selected = selected; }
     
     public String getSemester() { return semester; }
-    public void setSemester(String semester) { this.semester = semester; }
+    public void setSemester(String semester) { checkWritable(); this.semester = semester; }
     
     public CourseType getCourseType() { return courseType; }
-    public void setCourseType(CourseType courseType) { this.courseType = courseType; }
+    public void setCourseType(CourseType courseType) { checkWritable(); this.courseType = courseType; }
 
     public boolean isMajorCourse() { return isMajorCourse; }
-    public void setMajorCourse(boolean majorCourse) { isMajorCourse = majorCourse; }
+    public void setMajorCourse(boolean majorCourse) { checkWritable(); isMajorCourse = majorCourse; }
 
     public int getOriginalIndex() { return originalIndex; }
-    public void setOriginalIndex(int originalIndex) { this.originalIndex = originalIndex; }
+    public void setOriginalIndex(int originalIndex) { checkWritable(); this.originalIndex = originalIndex; }
+
+    public boolean isReadOnly() { return readOnly; }
+
+    // 复制课程信息，供后台保存等场景使用；副本总是可以修改
+    public Course copy() {
+        return copy(id);
+    }
+
+    // 复制全部课程信息，编号改为id
+    public Course copy(long id) {
+        Course copy = new Course(id, name, credit, score, selected, semester, courseType);
+        copy.isMajorCourse = isMajorCourse;
+        copy.originalIndex = originalIndex;
+        return copy;
+    }
+
+    // 只读副本，调用任何setter都会抛出UnsupportedOperationException；已是只读时直接返回自身
+    public Course readOnlyCopy() {
+        if (readOnly) return this;
+        Course copy = copy();
+        copy.readOnly = true;
+        return copy;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("课程" + id + "为只读，请修改其copy()后再提交");
+        }
+    }
 
     // 添加toTableRow方法
     public Object[] toTableRow(int displayIndex) {
@@ -0,0 +1,602 @@
+package com.gpa.server;
+
+import com.gpa.model.Course;
+import com.gpa.service.CourseImporter;
+import com.gpa.service.CourseSnapshot;
+import com.gpa.service.GPACalculator;
+import com.gpa.service.GradingScales;
+import com.gpa.service.LatencyHistogram;
+import com.gpa.service.Metrics;
+import com.gpa.service.StudentRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 本机HTTP服务：基于JDK自带的HttpServer，把GPACalculator以接口形式提供给其他系统调用，只监听127.0.0.1
+//   GET    /courses[?semester=&type=]   课程列表
+//   GET    /courses/{id}                单门课程
+//   POST   /courses                     新增课程（表单字段：name, credit, score, type, semester, selected）
+//   PUT    /courses/{id}                修改课程（字段同上）
+//   DELETE /courses/{id}                删除课程
+//   POST   /courses/{id}/toggle         切换是否计入GPA
+//   POST   /transcript?format=csv|xlsx  上传CSV或Excel成绩单，批量导入
+//   POST   /batch                       批量修改，每行一个表单编码的操作（op=add|update|delete|toggle），整批原子执行
+//   GET    /gpa                         全部算法结果和各课程类型均分
+//   GET    /metrics                     各接口的耗时直方图
+// 以--students启动时为多学生模式，除/metrics外的接口都加上/students/{学号}前缀，例如GET /students/2021001/gpa
+// 用法：java -cp gpa-calculator-jar-with-dependencies.jar com.gpa.server.GpaServer [--port 8080] [--threads N]
+//      [--students 数据目录 [--idle-minutes 30]]
+public final class GpaServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 10 * 1024 * 1024;
+
+    private final GPACalculator calculator;  // 单学生模式
+    private final StudentRegistry registry;  // 多学生模式
+    private final ExecutorService executor;
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private HttpServer server;
+
+    // 请求在executor上处理；读取使用计算器发布的快照，修改和按编号查找在其锁内进行
+    public GpaServer(GPACalculator calculator, ExecutorService executor) {
+        this(calculator, null, executor);
+    }
+
+    // 多学生模式：每个请求从registry租用对应学生的计算器，不同学生的请求互不阻塞
+    public GpaServer(StudentRegistry registry, ExecutorService executor) {
+        this(null, registry, executor);
+    }
+
+    private GpaServer(GPACalculator calculator, StudentRegistry registry, ExecutorService executor) {
+        this.calculator = calculator;
+        this.registry = registry;
+        this.executor = executor;
+        endpoints.put("courses", this::handleCourses);
+        endpoints.put("transcript", this::handleTranscript);
+        endpoints.put("batch", this::handleBatch);
+        endpoints.put("gpa", this::handleGpa);
+    }
+
+    // 端口为0时由系统分配，返回实际监听的端口
+    public synchronized int start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        if (registry != null) {
+            server.createContext("/students", timed(this::handleStudent));
+        } else {
+            for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+                Endpoint endpoint = entry.getValue();
+                server.createContext("/" + entry.getKey(),
+                    timed(exchange -> endpoint.handle(exchange, calculator, subPath(exchange))));
+            }
+        }
+        server.createContext("/metrics", timed(this::handleMetrics));
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    // 等待进行中的请求最多delaySeconds秒后停止
+    public synchronized void stop(int delaySeconds) {
+        if (server != null) {
+            server.stop(delaySeconds);
+            server = null;
+        }
+        executor.shutdown();
+    }
+
+    public Map<String, LatencyHistogram> getLatencies() {
+        return latencies;
+    }
+
+    // 指定线程数时使用固定线程池；否则在支持虚拟线程的JDK上每个请求一个虚拟线程，不支持时按CPU数建线程池
+    public static ExecutorService newExecutor(int threads) {
+        if (threads <= 0) {
+            ExecutorService virtual = virtualThreadExecutor();
+            if (virtual != null) {
+                return virtual;
+            }
+            threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "gpa-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 按Java 8编译，虚拟线程（JDK 21+）只能通过反射创建
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        Metrics.install();
+        int port = DEFAULT_PORT;
+        int threads = 0;
+        File studentsDirectory = null;
+        long idleMinutes = 30;
+        try {
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                if ("--port".equals(args[i])) {
+                    port = Integer.parseInt(args[i + 1]);
+                } else if ("--threads".equals(args[i])) {
+                    threads = Integer.parseInt(args[i + 1]);
+                } else if ("--students".equals(args[i])) {
+                    studentsDirectory = new File(args[i + 1]);
+                } else if ("--idle-minutes".equals(args[i])) {
+                    idleMinutes = Long.parseLong(args[i + 1]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("用法：GpaServer [--port 8080] [--threads N] [--students 数据目录 [--idle-minutes 30]]");
+            System.exit(2);
+        }
+
+        Closeable data;
+        GpaServer gpaServer;
+        if (studentsDirectory != null) {
+            StudentRegistry registry = new StudentRegistry(GradingScales.load(),
+                StudentRegistry.excelDirectory(studentsDirectory));
+            long idleMillis = TimeUnit.MINUTES.toMillis(idleMinutes);
+            registry.startIdleEviction(idleMillis, Math.max(1000, Math.min(idleMillis, TimeUnit.MINUTES.toMillis(1))));
+            gpaServer = new GpaServer(registry, newExecutor(threads));
+            data = registry;
+        } else {
+            GPACalculator calculator = new GPACalculator();
+            calculator.setSaveErrorHandler(e -> System.err.println("Failed to save courses: " + e.getMessage()));
+            calculator.load();
+            gpaServer = new GpaServer(calculator, newExecutor(threads));
+            data = calculator;
+        }
+        int actualPort = gpaServer.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            gpaServer.stop(1);
+            try {
+                data.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close course data: " + e.getMessage());
+            }
+        }));
+        System.out.println("GPA服务已启动：http://127.0.0.1:" + actualPort + "/");
+    }
+
+    // 请求处理中的错误，以对应的状态码和JSON错误信息返回
+    private static final class ApiException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException, ApiException;
+    }
+
+    // 各接口的处理方法；path为接口名之后的路径各段
+    private interface Endpoint {
+        void handle(HttpExchange exchange, GPACalculator calculator, String[] path) throws IOException, ApiException;
+    }
+
+    // 统一的错误处理和耗时统计，按"方法 接口"分别记录
+    private HttpHandler timed(Handler handler) {
+        return exchange -> {
+            long start = System.nanoTime();
+            try {
+                handler.handle(exchange);
+            } catch (ApiException e) {
+                send(exchange, e.status, Json.error(e.getMessage()));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                send(exchange, 500, Json.error("服务器内部错误：" + e));
+            } finally {
+                exchange.close();
+                latencies.computeIfAbsent(endpointKey(exchange), k -> new LatencyHistogram())
+                    .record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    // 多学生模式下不同学号的同一接口合并统计，不存在的接口统一记为*，避免任意路径产生新的统计项
+    private String endpointKey(HttpExchange exchange) {
+        String context = exchange.getHttpContext().getPath();
+        if ("/students".equals(context)) {
+            String[] path = subPath(exchange);
+            context = "/students/{id}/" + (path.length > 1 && endpoints.containsKey(path[1]) ? path[1] : "*");
+        }
+        return exchange.getRequestMethod() + " " + context;
+    }
+
+    // /students/{学号}/{接口}/...：租用该学生的计算器，处理完成后归还
+    private void handleStudent(HttpExchange exchange) throws IOException, ApiException {
+        String[] path = subPath(exchange);
+        Endpoint endpoint = path.length >= 2 ? endpoints.get(path[1]) : null;
+        if (endpoint == null) {
+            throw new ApiException(404, "接口不存在");
+        }
+        StudentRegistry.Lease lease;
+        try {
+            lease = registry.open(path[0]);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        } catch (IOException e) {
+            throw new ApiException(500, "无法读取学生" + path[0] + "的课程数据：" + e.getMessage());
+        }
+        try {
+            endpoint.handle(exchange, lease.calculator(), Arrays.copyOfRange(path, 2, path.length));
+        } finally {
+            lease.close();
+        }
+    }
+
+    private void handleCourses(HttpExchange exchange, GPACalculator calculator, String[] path)
+        throws IOException, ApiException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 0) {
+            if ("GET".equals(method)) {
+                Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+                send(exchange, 200, Json.courses(listCourses(calculator, query.get("semester"), query.get("type"))));
+            } else if ("POST".equals(method)) {
+                Course course = parseCourse(parseForm(readBody(exchange)));
+                synchronized (calculator) {
+                    calculator.addCourse(course);
+                }
+                send(exchange, 201, Json.course(course));
+            } else {
+                throw new ApiException(405, "不支持的请求方法：" + method);
+            }
+            return;
+        }
+
+        long id = parseId(path[0]);
+        if (path.length == 2 && "toggle".equals(path[1]) && "POST".equals(method)) {
+            String body;
+            synchronized (calculator) {
+                requireCourse(calculator, id);
+                calculator.toggleCourseSelectionById(id);
+                body = Json.course(calculator.findById(id));
+            }
+            send(exchange, 200, body);
+            return;
+        }
+        if (path.length != 1) {
+            throw new ApiException(404, "接口不存在");
+        }
+        switch (method) {
+            case "GET": {
+                String body;
+                synchronized (calculator) {
+                    body = Json.course(requireCourse(calculator, id));
+                }
+                send(exchange, 200, body);
+                break;
+            }
+            case "PUT": {
+                Course form = parseCourse(parseForm(readBody(exchange)));
+                Course course;
+                synchronized (calculator) {
+                    course = updated(requireCourse(calculator, id), form);
+                    calculator.updateCourseById(id, course);
+                }
+                send(exchange, 200, Json.course(course));
+                break;
+            }
+            case "DELETE":
+                synchronized (calculator) {
+                    requireCourse(calculator, id);
+                    calculator.removeCourseById(id);
+                }
+                send(exchange, 204, null);
+                break;
+            default:
+                throw new ApiException(405, "不支持的请求方法：" + method);
+        }
+    }
+
+    private static List<Course> listCourses(GPACalculator calculator, String semester, String type)
+        throws ApiException {
+        Course.CourseType courseType = null;
+        if (type != null && !type.isEmpty()) {
+            try {
+                courseType = Course.CourseType.valueOf(type);
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "无法识别的课程类型：" + type);
+            }
+        }
+        List<Course> result = new ArrayList<>();
+        for (Course course : calculator.snapshot().getCourses()) {
+            if ((semester == null || semester.equals(course.getSemester()))
+                && (courseType == null || courseType == course.getCourseType())) {
+                result.add(course);
+            }
+        }
+        return result;
+    }
+
+    // 上传的成绩单先写入临时文件，按导入功能的规则校验，通过校验的课程一次性加入并保存
+    private void handleTranscript(HttpExchange exchange, GPACalculator calculator, String[] path)
+        throws IOException, ApiException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            throw new ApiException(405, "不支持的请求方法：" + exchange.getRequestMethod());
+        }
+        String format = parseForm(exchange.getRequestURI().getRawQuery()).get("format");
+        if (format == null) {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            format = contentType != null && contentType.contains("csv") ? "csv" : "xlsx";
+        }
+        if (!"csv".equals(format) && !"xlsx".equals(format)) {
+            throw new ApiException(400, "format只能是csv或xlsx");
+        }
+
+        byte[] body = readBodyBytes(exchange);
+        File file = File.createTempFile("transcript", "." + format);
+        CourseImporter.Result result;
+        try {
+            Files.write(file.toPath(), body);
+            result = CourseImporter.importFile(file);
+        } catch (IOException e) {
+            throw new ApiException(400, "无法解析成绩单：" + e.getMessage());
+        } finally {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+        synchronized (calculator) {
+            calculator.addCourses(result.getCourses());
+        }
+
+        StringBuilder out = new StringBuilder("{\"imported\":").append(result.getCourses().size())
+            .append(",\"errors\":[");
+        for (int i = 0; i < result.getErrors().size(); i++) {
+            if (i > 0) out.append(',');
+            out.append(Json.string(result.getErrors().get(i)));
+        }
+        out.append("]}");
+        send(exchange, 200, out.toString());
+    }
+
+    // 先解析全部操作，再在计算器锁内按顺序核对课程编号，有任何一行不合法则整批不执行
+    // 核对时本批中已删除的课程对后续操作视为不存在；连续的新增合并为一次批量新增
+    private void handleBatch(HttpExchange exchange, GPACalculator calculator, String[] path)
+        throws IOException, ApiException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            throw new ApiException(405, "不支持的请求方法：" + exchange.getRequestMethod());
+        }
+        String[] lines = readBody(exchange).split("\r\n|\n");
+        List<Map<String, String>> operations = new ArrayList<>();
+        List<Course> parsedCourses = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].trim().isEmpty()) continue;
+            Map<String, String> op = parseForm(lines[i]);
+            String name = op.get("op");
+            try {
+                if ("add".equals(name) || "update".equals(name)) {
+                    parsedCourses.add(parseCourse(op));
+                } else if (!"delete".equals(name) && !"toggle".equals(name)) {
+                    throw new ApiException(400, "未知操作：" + name);
+                } else {
+                    parsedCourses.add(null);
+                }
+                if (!"add".equals(name)) {
+                    parseId(op.get("id"));
+                }
+            } catch (ApiException e) {
+                throw new ApiException(400, String.format("第%d行：%s", i + 1, e.getMessage()));
+            }
+            operations.add(op);
+            lineNumbers.add(i + 1);
+        }
+
+        List<Long> addedIds = new ArrayList<>();
+        int applied = 0;
+        synchronized (calculator) {
+            // 编号到本批执行到该行时的课程，值为null表示已在本批中删除
+            Map<Long, Course> staged = new HashMap<>();
+            for (int i = 0; i < operations.size(); i++) {
+                Map<String, String> op = operations.get(i);
+                if ("add".equals(op.get("op"))) continue;
+                long id = parseId(op.get("id"));
+                Course existing = staged.containsKey(id) ? staged.get(id) : calculator.findById(id);
+                if (existing == null) {
+                    throw new ApiException(409, String.format("第%d行：课程不存在或已在本批中删除：%d，整批未执行",
+                        lineNumbers.get(i), id));
+                }
+                switch (op.get("op")) {
+                    case "update":
+                        Course course = updated(existing, parsedCourses.get(i));
+                        parsedCourses.set(i, course);
+                        staged.put(id, course);
+                        break;
+                    case "delete":
+                        staged.put(id, null);
+                        break;
+                    default:
+                        staged.put(id, existing);
+                        break;
+                }
+            }
+
+            List<Course> pendingAdds = new ArrayList<>();
+            for (int i = 0; i < operations.size(); i++) {
+                Map<String, String> op = operations.get(i);
+                Course course = parsedCourses.get(i);
+                if ("add".equals(op.get("op"))) {
+                    pendingAdds.add(course);
+                    addedIds.add(course.getId());
+                    continue;
+                }
+                if (!pendingAdds.isEmpty()) {
+                    calculator.addCourses(pendingAdds);
+                    applied += pendingAdds.size();
+                    pendingAdds.clear();
+                }
+                long id = parseId(op.get("id"));
+                switch (op.get("op")) {
+                    case "update": calculator.updateCourseById(id, course); break;
+                    case "delete": calculator.removeCourseById(id); break;
+                    default: calculator.toggleCourseSelectionById(id); break;
+                }
+                applied++;
+            }
+            calculator.addCourses(pendingAdds);
+            applied += pendingAdds.size();
+        }
+
+        StringBuilder out = new StringBuilder("{\"applied\":").append(applied).append(",\"addedIds\":[");
+        for (int i = 0; i < addedIds.size(); i++) {
+            if (i > 0) out.append(',');
+            out.append(addedIds.get(i));
+        }
+        send(exchange, 200, out.append("]}").toString());
+    }
+
+    private void handleGpa(HttpExchange exchange, GPACalculator calculator, String[] path)
+        throws IOException, ApiException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            throw new ApiException(405, "不支持的请求方法：" + exchange.getRequestMethod());
+        }
+        // 课程数和统计结果取自同一版本
+        CourseSnapshot snapshot = calculator.snapshot();
+        send(exchange, 200, Json.summary(snapshot.getSummary(), snapshot.size()));
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException, ApiException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            throw new ApiException(405, "不支持的请求方法：" + exchange.getRequestMethod());
+        }
+        send(exchange, 200, Json.histograms(new TreeMap<>(latencies)));
+    }
+
+    private static Course requireCourse(GPACalculator calculator, long id) throws ApiException {
+        Course course = calculator.findById(id);
+        if (course == null) {
+            throw new ApiException(404, "课程不存在：" + id);
+        }
+        return course;
+    }
+
+    private static Course parseCourse(Map<String, String> form) throws ApiException {
+        try {
+            return CourseImporter.parseCourse(form.get("name"), form.get("credit"), form.get("score"),
+                form.get("type"), form.get("semester"), form.get("selected"));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+    }
+
+    // 修改后的课程沿用原编号，客户端持有的编号保持有效；表单中没有的专业课标记和原始位置沿用原课程
+    private static Course updated(Course existing, Course form) {
+        Course course = form.copy(existing.getId());
+        course.setMajorCourse(existing.isMajorCourse());
+        course.setOriginalIndex(existing.getOriginalIndex());
+        return course;
+    }
+
+    private static long parseId(String text) throws ApiException {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "无效的课程编号：" + text);
+        }
+    }
+
+    // 上下文路径之后的各段，例如/courses/12/toggle得到["12", "toggle"]
+    private static String[] subPath(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        String rest = path.substring(exchange.getHttpContext().getPath().length());
+        while (rest.startsWith("/")) {
+            rest = rest.substring(1);
+        }
+        return rest.isEmpty() ? new String[0] : rest.split("/");
+    }
+
+    // 解析application/x-www-form-urlencoded格式，同名字段取最后一个
+    static Map<String, String> parseForm(String text) {
+        Map<String, String> result = new HashMap<>();
+        if (text == null || text.isEmpty()) return result;
+        try {
+            for (String pair : text.split("&")) {
+                if (pair.isEmpty()) continue;
+                int eq = pair.indexOf('=');
+                String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+                result.put(key, value);
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalArgumentException e) {
+            // 不合法的百分号编码按缺少字段处理，由后续校验报告
+        }
+        return result;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException, ApiException {
+        return new String(readBodyBytes(exchange), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBodyBytes(HttpExchange exchange) throws IOException, ApiException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                if (out.size() + n > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "请求内容过大");
+                }
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    // body为null时不返回内容
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.gpa.server;
+
+import com.gpa.model.Course;
+import com.gpa.service.GPASummary;
+import com.gpa.service.GradingScale;
+import com.gpa.service.LatencyHistogram;
+
+import java.util.List;
+import java.util.Map;
+
+// 接口返回的JSON文本，字段都是固定结构，直接拼接而不引入JSON库
+final class Json {
+    private Json() {
+    }
+
+    static String course(Course course) {
+        StringBuilder out = new StringBuilder();
+        appendCourse(out, course);
+        return out.toString();
+    }
+
+    static String courses(List<Course> courses) {
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < courses.size(); i++) {
+            if (i > 0) out.append(',');
+            appendCourse(out, courses.get(i));
+        }
+        return out.append(']').toString();
+    }
+
+    static void appendCourse(StringBuilder out, Course course) {
+        out.append("{\"id\":").append(course.getId())
+            .append(",\"name\":").append(string(course.getName()))
+            .append(",\"credit\":").append(course.getCredit())
+            .append(",\"score\":").append(course.getScore())
+            .append(",\"selected\":").append(course.isSelected())
+            .append(",\"semester\":").append(string(course.getSemester()))
+            .append(",\"type\":").append(string(course.getCourseType().name()))
+            .append(",\"typeName\":").append(string(course.getCourseType().getDisplayName()))
+            .append('}');
+    }
+
+    // 全部算法结果和各课程类型均分
+    static String summary(GPASummary summary, int courseCount) {
+        StringBuilder out = new StringBuilder("{\"courseCount\":").append(courseCount)
+            .append(",\"averageScore\":").append(summary.getAverageScore())
+            .append(",\"scales\":[");
+        List<GradingScale> scales = summary.getScales();
+        for (int i = 0; i < scales.size(); i++) {
+            GradingScale scale = scales.get(i);
+            if (i > 0) out.append(',');
+            out.append("{\"id\":").append(string(scale.getId()))
+                .append(",\"name\":").append(string(scale.getName()))
+                .append(",\"value\":").append(summary.getGradePoint(i))
+                .append('}');
+        }
+        out.append("],\"typeAverages\":{");
+        Course.CourseType[] types = Course.CourseType.values();
+        for (int t = 0; t < types.length; t++) {
+            if (t > 0) out.append(',');
+            out.append(string(types[t].name())).append(':').append(summary.getTypeAverageScore(types[t]));
+        }
+        return out.append("}}").toString();
+    }
+
+    static String histograms(Map<String, LatencyHistogram> histograms) {
+        StringBuilder out = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            if (!first) out.append(',');
+            first = false;
+            out.append(string(entry.getKey()))
+                .append(":{\"count\":").append(h.getCount())
+                .append(",\"meanMicros\":").append(Math.round(h.getMeanMicros()))
+                .append(",\"p50Micros\":").append(h.percentileMicros(0.50))
+                .append(",\"p90Micros\":").append(h.percentileMicros(0.90))
+                .append(",\"p99Micros\":").append(h.percentileMicros(0.99))
+                .append(",\"maxMicros\":").append(h.getMaxMicros())
+                .append('}');
+        }
+        return out.append('}').toString();
+    }
+
+    static String error(String message) {
+        return "{\"error\":" + string(message) + "}";
+    }
+
+    static String string(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (ch < 0x20) {
+                        out.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        out.append(ch);
+                    }
+            }
+        }
+        return out.append('"').toString();
+    }
+}
@@ -0,0 +1,224 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// 课程列表的紧凑二进制快照，用于快速冷启动；仅当对应的工作簿未变化时才使用
+// 格式：头部(魔数、版本、工作簿修改时间/长度/CRC32、日志序号、课程数)
+//      + 学期字典 + 课程名 + 学分列 + 成绩列 + 类型列 + 学期编号列 + 计入GPA位图 + 整体CRC32
+final class BinaryCourseSnapshot {
+    private static final int MAGIC = 0x47504153; // "GPAS"
+    private static final short VERSION = 1;
+    private static final int STAMP_BYTES = 4 + 2 + 8 * 3; // 魔数、版本和工作簿修改时间/长度/CRC32
+
+    private BinaryCourseSnapshot() {
+    }
+
+    static final class Loaded {
+        final List<Course> courses;
+        final long journalSeq;
+
+        Loaded(List<Course> courses, long journalSeq) {
+            this.courses = courses;
+            this.journalSeq = journalSeq;
+        }
+    }
+
+    // 读取快照；快照缺失、损坏或与工作簿不一致时返回null
+    // 先只读头部核对工作簿，一致时再把整个文件读入堆内存；不使用内存映射，避免映射未释放时（Windows）无法替换快照文件
+    static Loaded read(File snapshot, File workbook) {
+        if (!snapshot.isFile() || !workbook.isFile()) return null;
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < STAMP_BYTES + 8 + 4 + 8 || size > Integer.MAX_VALUE) return null;
+
+            ByteBuffer header = readFully(channel, STAMP_BYTES);
+            if (header.getInt() != MAGIC || header.getShort() != VERSION) return null;
+            long modified = header.getLong();
+            long length = header.getLong();
+            long hash = header.getLong();
+            if (!matches(workbook, modified, length, hash)) return null;
+
+            ByteBuffer buffer = readFully(channel, (int) size);
+
+            // 校验整体CRC，防止读取写了一半的快照
+            ByteBuffer body = buffer.duplicate();
+            body.position(0).limit((int) size - 8);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            buffer.position((int) size - 8);
+            if (buffer.getLong() != crc.getValue()) return null;
+            buffer.position(STAMP_BYTES);
+
+            long journalSeq = buffer.getLong();
+            int count = buffer.getInt();
+            String[] semesters = new String[buffer.getInt()];
+            for (int i = 0; i < semesters.length; i++) {
+                semesters[i] = readString(buffer);
+            }
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = readString(buffer);
+            }
+            double[] credits = new double[count];
+            buffer.asDoubleBuffer().get(credits);
+            buffer.position(buffer.position() + count * 8);
+            double[] scores = new double[count];
+            buffer.asDoubleBuffer().get(scores);
+            buffer.position(buffer.position() + count * 8);
+            byte[] types = new byte[count];
+            buffer.get(types);
+            int[] semesterIds = new int[count];
+            buffer.asIntBuffer().get(semesterIds);
+            buffer.position(buffer.position() + count * 4);
+            long[] selected = new long[(count + 63) / 64];
+            buffer.asLongBuffer().get(selected);
+
+            Course.CourseType[] typeValues = Course.CourseType.values();
+            List<Course> courses = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                boolean isSelected = (selected[i >>> 6] & (1L << (i & 63))) != 0;
+                courses.add(new Course(names[i], credits[i], scores[i], isSelected,
+                    semesters[semesterIds[i]], typeValues[types[i]]));
+            }
+            return new Loaded(courses, journalSeq);
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Ignoring snapshot " + snapshot + ": " + e);
+            return null;
+        }
+    }
+
+    // 从文件开头读取size字节，文件比预期短时抛出EOFException
+    private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                throw new EOFException("snapshot shorter than expected");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // 写入快照，记录当前工作簿的修改时间、长度和CRC32；先写临时文件再替换
+    static void write(File snapshot, File workbook, List<Course> courses, long journalSeq) throws IOException {
+        long modified = workbook.lastModified();
+        long length = workbook.length();
+        long hash = checksum(workbook);
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> semesters = new ArrayList<>();
+        int count = courses.size();
+        int[] semesterIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            String semester = courses.get(i).getSemester();
+            Integer id = dictionary.get(semester);
+            if (id == null) {
+                id = semesters.size();
+                dictionary.put(semester, id);
+                semesters.add(semester);
+            }
+            semesterIds[i] = id;
+        }
+
+        File tmp = new File(snapshot.getPath() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)), crc))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(modified);
+            out.writeLong(length);
+            out.writeLong(hash);
+            out.writeLong(journalSeq);
+            out.writeInt(count);
+
+            out.writeInt(semesters.size());
+            for (String semester : semesters) {
+                writeString(out, semester);
+            }
+            for (Course course : courses) {
+                writeString(out, course.getName());
+            }
+            for (Course course : courses) {
+                out.writeDouble(course.getCredit());
+            }
+            for (Course course : courses) {
+                out.writeDouble(course.getScore());
+            }
+            for (Course course : courses) {
+                out.writeByte(course.getCourseType().ordinal());
+            }
+            for (int id : semesterIds) {
+                out.writeInt(id);
+            }
+            long[] selected = new long[(count + 63) / 64];
+            for (int i = 0; i < count; i++) {
+                if (courses.get(i).isSelected()) {
+                    selected[i >>> 6] |= 1L << (i & 63);
+                }
+            }
+            for (long bits : selected) {
+                out.writeLong(bits);
+            }
+            out.flush();
+            // 末尾的CRC本身不计入校验范围
+            out.writeLong(crc.getValue());
+        }
+        CourseJournal.moveAtomically(tmp, snapshot);
+    }
+
+    // 修改时间和长度都未变时直接认为一致，否则按内容CRC32判断（例如文件只是被touch过）
+    private static boolean matches(File workbook, long modified, long length, long hash) throws IOException {
+        if (workbook.length() != length) return false;
+        if (workbook.lastModified() == modified) return true;
+        return checksum(workbook) == hash;
+    }
+
+    private static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.util.Arrays;
+
+// 计算器内部的课程列表，只在计算器的锁内修改，通过snapshot发布不可变版本
+// 已发布版本与当前数组共享时，修改已有位置前先复制一次数组；追加只写入已发布版本之后的位置，不需要复制
+final class CopyOnWriteCourses {
+    private Course[] elements = new Course[16];
+    private int size;
+    private boolean shared; // elements是否被已发布的版本引用
+
+    int size() {
+        return size;
+    }
+
+    Course get(int index) {
+        return elements[index];
+    }
+
+    void add(Course course) {
+        if (size == elements.length) {
+            // 扩容本身就是复制，新数组不再与已发布版本共享
+            elements = Arrays.copyOf(elements, size * 2);
+            shared = false;
+        }
+        elements[size++] = course;
+    }
+
+    Course set(int index, Course course) {
+        unshare();
+        Course previous = elements[index];
+        elements[index] = course;
+        return previous;
+    }
+
+    Course remove(int index) {
+        unshare();
+        Course removed = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        return removed;
+    }
+
+    void clear() {
+        elements = new Course[16];
+        size = 0;
+        shared = false;
+    }
+
+    CourseSnapshot snapshot(long version, GPASummary summary) {
+        shared = true;
+        return new CourseSnapshot(version, elements, size, summary);
+    }
+
+    private void unshare() {
+        if (shared) {
+            elements = elements.clone();
+            shared = false;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.gpa.service;
+
+// GPACalculator发布的课程变化事件，index为变化发生后课程在列表中的位置
+public final class CourseEvent {
+    public enum Type {
+        ADDED,              // 新增课程，追加在列表末尾
+        BATCH_ADDED,        // 批量新增课程，从index开始依次追加在列表末尾
+        REMOVED,            // 删除课程，index为删除前的位置
+        UPDATED,            // 修改课程内容
+        SELECTION_TOGGLED,  // 切换是否计入GPA
+        BULK_LOADED         // 课程列表整体变化（例如读取数据文件），需要全部刷新
+    }
+
+    // 监听器在修改课程的线程上同步调用，此时计算器的锁仍被持有
+    public interface Listener {
+        void courseChanged(CourseEvent event);
+    }
+
+    private final Type type;
+    private final long courseId;
+    private final long previousId;
+    private final int index;
+    private final long[] courseIds;
+
+    private CourseEvent(Type type, long courseId, long previousId, int index, long[] courseIds) {
+        this.type = type;
+        this.courseId = courseId;
+        this.previousId = previousId;
+        this.index = index;
+        this.courseIds = courseIds;
+    }
+
+    static CourseEvent single(Type type, long courseId, int index) {
+        return new CourseEvent(type, courseId, courseId, index, null);
+    }
+
+    static CourseEvent updated(long previousId, long courseId, int index) {
+        return new CourseEvent(Type.UPDATED, courseId, previousId, index, null);
+    }
+
+    static CourseEvent batchAdded(int firstIndex, long[] courseIds) {
+        return new CourseEvent(Type.BATCH_ADDED, -1, -1, firstIndex, courseIds);
+    }
+
+    static CourseEvent bulk(long[] courseIds) {
+        return new CourseEvent(Type.BULK_LOADED, -1, -1, -1, courseIds);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // 受影响的课程编号，BATCH_ADDED和BULK_LOADED时为-1
+    public long getCourseId() {
+        return courseId;
+    }
+
+    // 修改前的课程编号，仅UPDATED时可能与getCourseId不同
+    public long getPreviousId() {
+        return previousId;
+    }
+
+    // 受影响课程的下标（BATCH_ADDED时为第一门课程的下标），BULK_LOADED时为-1
+    public int getIndex() {
+        return index;
+    }
+
+    // BATCH_ADDED时为新增的课程编号，BULK_LOADED时为变化后的全部课程编号，其余情况为单个课程编号
+    public long[] getCourseIds() {
+        return courseIds != null ? courseIds.clone() : new long[]{courseId};
+    }
+}
@@ -0,0 +1,62 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.util.Arrays;
+
+// 课程表格的筛选条件：学期、课程类型和名称关键字，按课程下标在列存储上匹配，不依赖界面
+// 与列存储和搜索索引一样，只能在修改课程的同一线程上使用
+public final class CourseFilter {
+    private final CourseStore store;
+    private final CourseSearchIndex searchIndex;
+    private final String semester;           // null表示全部学期
+    private final Course.CourseType type;    // null表示全部类型
+    private final String searchText;         // 已经过CourseSearchIndex.normalize
+
+    public CourseFilter(CourseStore store, CourseSearchIndex searchIndex,
+                        String semester, Course.CourseType type, String searchText) {
+        this.store = store;
+        this.searchIndex = searchIndex;
+        this.semester = semester;
+        this.type = type;
+        this.searchText = CourseSearchIndex.normalize(searchText);
+    }
+
+    // 不做任何筛选
+    public static CourseFilter all(CourseStore store, CourseSearchIndex searchIndex) {
+        return new CourseFilter(store, searchIndex, null, null, "");
+    }
+
+    // 把匹配的课程下标按升序写入rows，返回匹配数量；数量大于rows.length时rows的内容无意义，需换更大的数组重试
+    public int select(int[] rows) {
+        int semesterId = semester == null ? -1 : store.semesterId(semester);
+        if (semester != null && semesterId < 0) {
+            return 0;
+        }
+        int typeOrdinal = type == null ? -1 : type.ordinal();
+        int matched = store.select(semesterId, typeOrdinal, rows);
+        if (matched > rows.length) {
+            return matched;
+        }
+
+        long[] matchedIds = searchIndex.search(searchText); // 升序的课程编号，null表示不按名称筛选
+        if (matchedIds == null) {
+            return matched;
+        }
+        // 学期和类型已按编号筛过，再与名称搜索结果取交集
+        int count = 0;
+        for (int k = 0; k < matched; k++) {
+            if (Arrays.binarySearch(matchedIds, store.getId(rows[k])) >= 0) {
+                rows[count++] = rows[k];
+            }
+        }
+        return count;
+    }
+
+    // 单门课程是否匹配，供课程增删改时增量维护筛选结果
+    public boolean matches(int index) {
+        return (semester == null || semester.equals(store.getSemester(index)))
+            && (type == null || type == store.getType(index))
+            && searchIndex.matches(store.getId(index), searchText);
+    }
+}
@@ -0,0 +1,296 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+// 从CSV或外部Excel成绩单导入课程：列顺序与score.xlsx相同（课程名称、学分、成绩、课程类型、学期、是否计入GPA）
+// 各行并行解析和校验，有问题的行记录行号和原因，不影响其余行
+public final class CourseImporter {
+    private static final Charset GBK = Charset.forName("GBK");
+
+    private CourseImporter() {
+    }
+
+    // 导入结果：通过校验的课程（保持文件中的顺序）和有问题的行
+    public static final class Result {
+        private final List<Course> courses;
+        private final List<String> errors;
+
+        Result(List<Course> courses, List<String> errors) {
+            this.courses = Collections.unmodifiableList(courses);
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        public List<Course> getCourses() {
+            return courses;
+        }
+
+        // 每项形如"第3行：学分必须大于0"
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    // 按扩展名选择CSV或Excel格式
+    public static Result importFile(File file) throws IOException {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return importCsv(file);
+        }
+        if (name.endsWith(".xlsx") || name.endsWith(".xls")) {
+            return importWorkbook(file);
+        }
+        throw new IOException("不支持的文件格式：" + file.getName());
+    }
+
+    // CSV按UTF-8读取，不是合法UTF-8时按GBK读取（Excel导出的中文CSV通常是GBK）
+    // 先顺序拆分记录（双引号内的换行属于字段内容），再并行解析和校验
+    public static Result importCsv(File file) throws IOException {
+        String text = decode(Files.readAllBytes(file.toPath()));
+        if (text.startsWith("\uFEFF")) {
+            text = text.substring(1);
+        }
+        return validate(splitCsvRecords(text).parallelStream());
+    }
+
+    // 外部成绩单只读取第一个工作表，单元格统一按显示文本读取后再校验
+    public static Result importWorkbook(File file) throws IOException {
+        List<RawRow> rows = new ArrayList<>();
+        DataFormatter formatter = new DataFormatter();
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (Row row : sheet) {
+                String[] cells = new String[ExcelCourseWriter.HEADERS.length];
+                boolean empty = true;
+                for (int c = 0; c < cells.length; c++) {
+                    Cell cell = row.getCell(c);
+                    cells[c] = cell == null ? "" : formatter.formatCellValue(cell);
+                    empty &= cells[c].trim().isEmpty();
+                }
+                if (!empty) {
+                    rows.add(new RawRow(row.getRowNum() + 1, cells));
+                }
+            }
+        }
+        return validate(rows.parallelStream());
+    }
+
+    private static Result validate(Stream<RawRow> rows) {
+        // 并行解析，toArray保持原有顺序
+        Object[] parsed = rows
+            .filter(row -> row != null && !isHeader(row))
+            .map(CourseImporter::parseRow)
+            .toArray();
+
+        List<Course> courses = new ArrayList<>(parsed.length);
+        List<String> errors = new ArrayList<>();
+        for (Object item : parsed) {
+            if (item instanceof Course) {
+                courses.add((Course) item);
+            } else {
+                errors.add((String) item);
+            }
+        }
+        return new Result(courses, errors);
+    }
+
+    private static boolean isHeader(RawRow row) {
+        return row.cells.length > 0 && ExcelCourseWriter.HEADERS[0].equals(row.cells[0].trim());
+    }
+
+    // 返回Course，或描述问题的字符串
+    private static Object parseRow(RawRow row) {
+        if (row.problem != null) {
+            return error(row, row.problem);
+        }
+        String[] cells = row.cells;
+        if (cells.length < 5) {
+            return error(row, "列数不足，至少需要课程名称、学分、成绩、课程类型和学期");
+        }
+        try {
+            return parseCourse(cells[0], cells[1], cells[2], cells[3], cells[4], cells.length > 5 ? cells[5] : "");
+        } catch (IllegalArgumentException e) {
+            return error(row, e.getMessage());
+        }
+    }
+
+    // 校验并转换一门课程的文本字段，不合法时抛出IllegalArgumentException说明原因
+    // selected为空或null时视为计入GPA
+    public static Course parseCourse(String name, String credit, String score, String type,
+                                     String semester, String selected) {
+        name = name == null ? "" : name.trim();
+        semester = semester == null ? "" : semester.trim();
+        if (name.isEmpty() || semester.isEmpty()) {
+            throw new IllegalArgumentException("课程名称和学期不能为空");
+        }
+
+        double creditValue;
+        double scoreValue;
+        try {
+            creditValue = Double.parseDouble(credit.trim());
+            scoreValue = Double.parseDouble(score.trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IllegalArgumentException("学分和成绩必须是数字");
+        }
+        if (!(creditValue > 0) || Double.isInfinite(creditValue)) {
+            throw new IllegalArgumentException("学分必须大于0");
+        }
+        if (!(scoreValue >= 0 && scoreValue <= 100)) {
+            throw new IllegalArgumentException("成绩必须在0-100之间");
+        }
+
+        String typeText = type == null ? "" : type.trim();
+        Course.CourseType courseType = parseType(typeText);
+        if (courseType == null) {
+            throw new IllegalArgumentException("无法识别的课程类型：" + typeText);
+        }
+
+        String selectedText = selected == null ? "" : selected.trim();
+        Boolean selectedValue = parseBoolean(selectedText);
+        if (selectedValue == null) {
+            throw new IllegalArgumentException("是否计入GPA应为是/否：" + selectedText);
+        }
+        return new Course(name, creditValue, scoreValue, selectedValue, semester, courseType);
+    }
+
+    private static String error(RawRow row, String message) {
+        return String.format("第%d行：%s", row.lineNumber, message);
+    }
+
+    // 接受枚举名（MAJOR）或显示名（专业课程）
+    private static Course.CourseType parseType(String text) {
+        for (Course.CourseType type : Course.CourseType.values()) {
+            if (type.name().equalsIgnoreCase(text) || type.getDisplayName().equals(text)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    // 空值视为计入GPA
+    private static Boolean parseBoolean(String text) {
+        switch (text.toLowerCase(Locale.ROOT)) {
+            case "":
+            case "是":
+            case "true":
+            case "1":
+            case "y":
+            case "yes":
+                return Boolean.TRUE;
+            case "否":
+            case "false":
+            case "0":
+            case "n":
+            case "no":
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    // 按记录拆分CSV文本，支持双引号包围的字段、其中成对的双引号和换行
+    // 每条记录以起始行的行号标记，空行跳过；引号到文件末尾仍未闭合时该记录标记为有问题
+    static List<RawRow> splitCsvRecords(String text) {
+        List<RawRow> rows = new ArrayList<>();
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean blank = true;
+        int line = 1;
+        int startLine = 1;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (ch == '\n' || (ch == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'))) {
+                        line++;
+                    }
+                    cell.append(ch);
+                }
+            } else if (ch == '\r' || ch == '\n') {
+                if (ch == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                cells.add(cell.toString());
+                if (!blank) {
+                    rows.add(new RawRow(startLine, cells.toArray(new String[0])));
+                }
+                cells.clear();
+                cell.setLength(0);
+                blank = true;
+                startLine = ++line;
+            } else if (ch == '"') {
+                quoted = true;
+                blank = false;
+            } else if (ch == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+                blank = false;
+            } else {
+                cell.append(ch);
+                blank &= Character.isWhitespace(ch);
+            }
+        }
+        cells.add(cell.toString());
+        if (quoted) {
+            rows.add(new RawRow(startLine, cells.toArray(new String[0]), "双引号未闭合，该行起至文件末尾无法解析"));
+        } else if (!blank) {
+            rows.add(new RawRow(startLine, cells.toArray(new String[0])));
+        }
+        return rows;
+    }
+
+    private static String decode(byte[] bytes) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(bytes))
+                .toString();
+        } catch (CharacterCodingException e) {
+            return new String(bytes, GBK);
+        }
+    }
+
+    static final class RawRow {
+        final int lineNumber;
+        final String[] cells;
+        final String problem; // 无法拆分出字段时的原因，正常为null
+
+        RawRow(int lineNumber, String[] cells) {
+            this(lineNumber, cells, null);
+        }
+
+        RawRow(int lineNumber, String[] cells, String problem) {
+            this.lineNumber = lineNumber;
+            this.cells = cells;
+            this.problem = problem;
+        }
+    }
+}
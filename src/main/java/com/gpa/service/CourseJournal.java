@@ -0,0 +1,352 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// 课程修改日志：每次修改追加一条带序号和校验和的小记录，定期合并进工作簿后截断
+// 记录格式：[int 长度][long CRC32][载荷]，载荷以递增序号开头；末尾残缺的记录在打开时丢弃
+// 默认追加时只写入文件，由sync()把此前的记录一并刷到磁盘；syncEachAppend为true时每次追加都刷盘
+final class CourseJournal implements Closeable {
+    static final byte ADD = 1;
+    static final byte REMOVE = 2;
+    static final byte UPDATE = 3;
+    static final byte TOGGLE = 4;
+    // 操作码上的标记：课程名称和学期以int长度加UTF-8字节保存；旧日志中没有此标记的记录使用writeUTF格式
+    private static final byte LONG_TEXT = 0x10;
+
+    private static final int HEADER_BYTES = 4 + 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    interface Visitor {
+        void add(Course course);
+
+        void remove(int index);
+
+        void update(int index, Course course);
+
+        void toggle(int index);
+    }
+
+    private final File file;
+    private final boolean syncEachAppend;
+    private FileChannel channel;
+    private long lastSeq;
+    private int recordCount;
+    private boolean unsynced; // 有已写入但尚未刷到磁盘的记录
+
+    CourseJournal(File file) {
+        this(file, true);
+    }
+
+    CourseJournal(File file, boolean syncEachAppend) {
+        this.file = file;
+        this.syncEachAppend = syncEachAppend;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    int getRecordCount() {
+        return recordCount;
+    }
+
+    // 重放序号大于afterSeq的记录，并丢弃末尾残缺的部分；之后的追加从此处继续
+    synchronized void open(long afterSeq, Visitor visitor) throws IOException {
+        lastSeq = afterSeq;
+        recordCount = 0;
+        long validLength = 0;
+        if (file.exists()) {
+            byte[] data = Files.readAllBytes(file.toPath());
+            Scan scan = scan(data, afterSeq, visitor);
+            lastSeq = Math.max(lastSeq, scan.lastSeq);
+            recordCount = scan.records;
+            validLength = scan.validLength;
+            if (validLength < data.length) {
+                System.err.println("Discarding " + (data.length - validLength) + " trailing bytes of " + file);
+            }
+        }
+        channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+    }
+
+    // 只读地重放file中序号大于afterSeq的记录，不修改文件，末尾残缺的部分忽略
+    // 返回读到的最小序号，文件不存在或没有有效记录时返回-1
+    static long replay(File file, long afterSeq, Visitor visitor) throws IOException {
+        if (!file.exists()) return -1;
+        return scan(Files.readAllBytes(file.toPath()), afterSeq, visitor).firstSeq;
+    }
+
+    private static Scan scan(byte[] data, long afterSeq, Visitor visitor) throws IOException {
+        Scan scan = new Scan();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (length <= 0 || length > MAX_RECORD_BYTES || length > buffer.remaining()) break;
+            CRC32 crc = new CRC32();
+            crc.update(data, buffer.position(), length);
+            if (crc.getValue() != checksum) break;
+
+            DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(data, buffer.position(), length));
+            buffer.position(buffer.position() + length);
+            scan.validLength = buffer.position();
+
+            long seq = in.readLong();
+            scan.records++;
+            scan.firstSeq = scan.firstSeq < 0 ? seq : Math.min(scan.firstSeq, seq);
+            scan.lastSeq = Math.max(scan.lastSeq, seq);
+            if (seq > afterSeq) {
+                apply(in, visitor);
+            }
+        }
+        return scan;
+    }
+
+    private static final class Scan {
+        long firstSeq = -1;
+        long lastSeq;
+        int records;
+        long validLength;
+    }
+
+    private static void apply(DataInputStream in, Visitor visitor) throws IOException {
+        byte op = in.readByte();
+        boolean longText = (op & LONG_TEXT) != 0;
+        op &= ~LONG_TEXT;
+        int index = in.readInt();
+        try {
+            switch (op) {
+                case ADD:
+                    visitor.add(readCourse(in, longText));
+                    break;
+                case REMOVE:
+                    visitor.remove(index);
+                    break;
+                case UPDATE:
+                    visitor.update(index, readCourse(in, longText));
+                    break;
+                case TOGGLE:
+                    visitor.toggle(index);
+                    break;
+                default:
+                    System.err.println("Skipping unknown journal operation " + op);
+            }
+        } catch (EOFException | IllegalArgumentException e) {
+            System.err.println("Skipping invalid journal record: " + e.getMessage());
+        }
+    }
+
+    // 追加一条记录，返回该记录的序号
+    synchronized long append(byte op, int index, Course course) throws IOException {
+        long seq = lastSeq + 1;
+        write(encode(seq, op, index, course));
+        lastSeq = seq;
+        recordCount++;
+        return seq;
+    }
+
+    // 批量追加新增课程的记录，一次写入；firstIndex为第一门课程的下标，返回最后一条记录的序号
+    synchronized long appendAdds(int firstIndex, List<Course> courses) throws IOException {
+        if (courses.isEmpty()) return lastSeq;
+        ByteArrayOutputStream all = new ByteArrayOutputStream(courses.size() * 64);
+        long seq = lastSeq;
+        for (int i = 0; i < courses.size(); i++) {
+            all.write(encode(++seq, ADD, firstIndex + i, courses.get(i)));
+        }
+        write(all.toByteArray());
+        lastSeq = seq;
+        recordCount += courses.size();
+        return seq;
+    }
+
+    // 编码在写入文件之前完成，记录过大时抛出IOException，日志中不会留下任何内容
+    private static byte[] encode(long seq, byte op, int index, Course course) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(seq);
+        out.writeByte(course != null ? op | LONG_TEXT : op);
+        out.writeInt(index);
+        if (course != null) {
+            writeCourse(out, course);
+        }
+        out.flush();
+
+        byte[] payload = bytes.toByteArray();
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new IOException("课程信息过长，无法写入日志：" + payload.length + "字节");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putLong(crc.getValue()).put(payload);
+        return record.array();
+    }
+
+    // 写入失败时截断回写入前的位置，不在日志中间留下残缺的记录，否则重放时会在此处截断其后已确认的记录
+    private void write(byte[] records) throws IOException {
+        requireOpen();
+        long start = channel.position();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(records);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (syncEachAppend) {
+                channel.force(false);
+            } else {
+                unsynced = true;
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException rollback) {
+                e.addSuppressed(rollback);
+            }
+            throw e;
+        }
+    }
+
+    // 把已写入的记录刷到磁盘，多次追加只刷一次；日志已关闭时不做任何事
+    synchronized void sync() throws IOException {
+        if (channel != null && unsynced) {
+            channel.force(false);
+            unsynced = false;
+        }
+    }
+
+    // 删除序号不大于seq的记录（它们已合并进工作簿），保留之后追加的记录
+    synchronized void truncateThrough(long seq) throws IOException {
+        requireOpen();
+        byte[] data = new byte[(int) channel.size()];
+        ByteBuffer all = ByteBuffer.wrap(data);
+        while (all.hasRemaining()) {
+            if (channel.read(all, all.position()) < 0) {
+                throw new EOFException("日志文件在读取时变短：" + file);
+            }
+        }
+
+        int keepFrom = data.length;
+        int kept = 0;
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            buffer.getLong();
+            long recordSeq = buffer.getLong();
+            buffer.position(start + HEADER_BYTES + length);
+            if (recordSeq > seq) {
+                keepFrom = Math.min(keepFrom, start);
+                kept++;
+            }
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        Files.write(tmp.toPath(), Arrays.copyOfRange(data, keepFrom, data.length));
+        channel.close();
+        moveAtomically(tmp, file);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        channel.force(false);
+        unsynced = false;
+        recordCount = kept;
+    }
+
+    // 关闭前把尚未刷盘的记录写到磁盘
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            try {
+                sync();
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private void requireOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("日志未打开或已关闭：" + file);
+        }
+    }
+
+    static void moveAtomically(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeCourse(DataOutputStream out, Course course) throws IOException {
+        writeText(out, course.getName());
+        out.writeDouble(course.getCredit());
+        out.writeDouble(course.getScore());
+        out.writeBoolean(course.isSelected());
+        writeText(out, course.getSemester());
+        out.writeByte(course.getCourseType().ordinal());
+        out.writeBoolean(course.isMajorCourse());
+    }
+
+    private static Course readCourse(DataInputStream in, boolean longText) throws IOException {
+        String name = longText ? readText(in) : in.readUTF();
+        double credit = in.readDouble();
+        double score = in.readDouble();
+        boolean selected = in.readBoolean();
+        String semester = longText ? readText(in) : in.readUTF();
+        int type = in.readByte();
+        boolean major = in.readBoolean();
+        Course.CourseType[] types = Course.CourseType.values();
+        if (type < 0 || type >= types.length) {
+            throw new IllegalArgumentException("unknown course type " + type);
+        }
+        Course course = new Course(name, credit, score, selected, semester, types[type]);
+        course.setMajorCourse(major);
+        return course;
+    }
+
+    // writeUTF限制编码后不超过65535字节，这里改用int长度，长度只受单条记录上限约束
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new EOFException("text length " + length + " exceeds record");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,47 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+// 课程数据的持久化存储；GPACalculator在持有自身锁时按修改顺序逐条调用
+// index为修改发生时课程在列表中的位置，新增课程总是追加在末尾
+public interface CourseRepository extends Closeable {
+    // 读取时按顺序回放的课程变化：先是已保存的课程，再是其后尚未合并的修改
+    interface Replay {
+        void add(Course course);
+
+        void remove(int index);
+
+        void update(int index, Course course);
+
+        void toggle(int index);
+    }
+
+    // 读取全部课程，边解析边回放给replay（在调用线程上），之后的修改都基于回放结果的顺序
+    void load(Replay replay) throws IOException;
+
+    void added(Course course) throws IOException;
+
+    // 一次性保存批量新增的课程（按顺序追加在末尾）
+    void addedAll(List<Course> courses) throws IOException;
+
+    void removed(int index, Course course) throws IOException;
+
+    void updated(int index, Course previous, Course current) throws IOException;
+
+    // course为切换后的课程
+    void toggled(int index, Course course) throws IOException;
+
+    // 写出所有尚未持久化的修改
+    void flush();
+
+    // 后台持久化失败时的回调，可能在后台线程上调用
+    void setErrorHandler(Consumer<Exception> handler);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,162 @@
+package com.gpa.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// 课程名称搜索索引：缓存每门课程小写后的名称，并按三字符片段（trigram）建立倒排表
+// 倒排表是按课程编号升序的long数组，查询时求交集而不是扫描全部课程；
+// 在上一次查询基础上继续输入（新查询包含旧查询）时，只在上一次的结果中筛选
+public final class CourseSearchIndex {
+    private static final int GRAM = 3;
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Long, String> keys = new HashMap<>();        // 课程编号 -> 小写名称
+    private final Map<String, Postings> postings = new HashMap<>(); // 片段 -> 含该片段的课程编号
+    private final Postings allIds = new Postings();
+
+    // 最近一次查询及其结果，索引变化后失效
+    private String lastQuery;
+    private long[] lastResult;
+
+    public void add(long id, String name) {
+        String key = normalize(name);
+        keys.put(id, key);
+        allIds.add(id);
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            postings.computeIfAbsent(key.substring(i, i + GRAM), g -> new Postings()).add(id);
+        }
+        lastQuery = null;
+    }
+
+    public void remove(long id) {
+        String key = keys.remove(id);
+        if (key == null) return;
+        allIds.remove(id);
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            String gram = key.substring(i, i + GRAM);
+            Postings list = postings.get(gram);
+            if (list != null) {
+                list.remove(id);
+                if (list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        lastQuery = null;
+    }
+
+    public void update(long id, String name) {
+        String key = keys.get(id);
+        if (key != null && key.equals(normalize(name))) return;
+        remove(id);
+        add(id, name);
+    }
+
+    public void clear() {
+        keys.clear();
+        postings.clear();
+        allIds.size = 0;
+        lastQuery = null;
+    }
+
+    // 判断课程名称是否包含query（query需已经过normalize），使用缓存的小写名称
+    public boolean matches(long id, String query) {
+        if (query.isEmpty()) return true;
+        String key = keys.get(id);
+        return key != null && key.contains(query);
+    }
+
+    // 返回名称包含query的课程编号（升序）；query为空时返回null，表示不按名称筛选
+    public long[] search(String query) {
+        String q = normalize(query);
+        if (q.isEmpty()) return null;
+        if (q.equals(lastQuery)) return lastResult;
+
+        long[] candidates;
+        if (lastQuery != null && q.contains(lastQuery)) {
+            // 查询只是变得更具体，结果必然是上一次结果的子集
+            candidates = lastResult;
+        } else if (q.length() >= GRAM) {
+            candidates = intersectGrams(q);
+        } else {
+            candidates = Arrays.copyOf(allIds.ids, allIds.size);
+        }
+
+        // 片段都出现不代表连续出现，最后用缓存的名称确认
+        long[] result = new long[candidates.length];
+        int count = 0;
+        for (long id : candidates) {
+            if (keys.get(id).contains(q)) {
+                result[count++] = id;
+            }
+        }
+        lastQuery = q;
+        lastResult = count == result.length ? result : Arrays.copyOf(result, count);
+        return lastResult;
+    }
+
+    // 按倒排表从短到长依次求交集
+    private long[] intersectGrams(String q) {
+        int gramCount = q.length() - GRAM + 1;
+        Postings[] lists = new Postings[gramCount];
+        for (int i = 0; i < gramCount; i++) {
+            lists[i] = postings.get(q.substring(i, i + GRAM));
+            if (lists[i] == null) return EMPTY;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        long[] current = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int size = current.length;
+        for (int k = 1; k < lists.length && size > 0; k++) {
+            long[] other = lists[k].ids;
+            int otherSize = lists[k].size;
+            int n = 0;
+            int j = 0;
+            for (int i = 0; i < size && j < otherSize; ) {
+                if (current[i] == other[j]) {
+                    current[n++] = current[i];
+                    i++;
+                    j++;
+                } else if (current[i] < other[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            size = n;
+        }
+        return size == current.length ? current : Arrays.copyOf(current, size);
+    }
+
+    // 统一的大小写转换，查询和缓存的名称都经过它处理
+    public static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    // 升序排列的课程编号列表；新课程编号递增，通常直接追加在末尾
+    private static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            int pos = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// 某一版本的课程列表和统计结果，发布后不再改变，任意线程无需加锁即可读取
+// 其中的课程对象都是只读的（Course.isReadOnly()），调用setter会抛出UnsupportedOperationException
+public final class CourseSnapshot {
+    private final long version;
+    private final Course[] courses; // 只读取前size个位置，之后的位置可能由更新的版本追加写入
+    private final int size;
+    private final GPASummary summary;
+    private final List<Course> view = new View();
+
+    CourseSnapshot(long version, Course[] courses, int size, GPASummary summary) {
+        this.version = version;
+        this.courses = courses;
+        this.size = size;
+        this.summary = summary;
+    }
+
+    // 每次修改后递增，可用于判断两次读取之间课程是否发生变化
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Course get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return courses[index];
+    }
+
+    // 不可修改的列表视图，不复制课程
+    public List<Course> getCourses() {
+        return view;
+    }
+
+    // 与本版本课程对应的统计结果
+    public GPASummary getSummary() {
+        return summary;
+    }
+
+    private final class View extends AbstractList<Course> implements RandomAccess {
+        @Override
+        public Course get(int index) {
+            return CourseSnapshot.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
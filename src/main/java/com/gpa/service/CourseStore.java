@@ -0,0 +1,236 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 按列存储的课程数据：编号、学分、成绩、类型、学期编号各为一个基本类型数组，计入GPA用位图表示
+// 统计和筛选直接扫描这些数组，不创建Course对象；需要对象时通过get(i)生成视图
+public final class CourseStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Course.CourseType[] TYPES = Course.CourseType.values();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private double[] credits = new double[INITIAL_CAPACITY];
+    private double[] scores = new double[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] semesterIds = new int[INITIAL_CAPACITY];
+    private final BitSet selected = new BitSet();
+    private final BitSet major = new BitSet();
+    private int size;
+
+    // 学期字典：编号只增不减，semesterCounts记录每个学期当前的课程数
+    private final List<String> semesters = new ArrayList<>();
+    private final Map<String, Integer> semesterIndex = new HashMap<>();
+    private int[] semesterCounts = new int[INITIAL_CAPACITY];
+
+    public int size() {
+        return size;
+    }
+
+    public void add(Course course) {
+        ensureCapacity(size + 1);
+        write(size, course);
+        size++;
+    }
+
+    public void set(int index, Course course) {
+        checkIndex(index);
+        semesterCounts[semesterIds[index]]--;
+        write(index, course);
+    }
+
+    public void remove(int index) {
+        checkIndex(index);
+        semesterCounts[semesterIds[index]]--;
+        int tail = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, tail);
+        System.arraycopy(names, index + 1, names, index, tail);
+        System.arraycopy(credits, index + 1, credits, index, tail);
+        System.arraycopy(scores, index + 1, scores, index, tail);
+        System.arraycopy(types, index + 1, types, index, tail);
+        System.arraycopy(semesterIds, index + 1, semesterIds, index, tail);
+        shiftDown(selected, index);
+        shiftDown(major, index);
+        size--;
+        names[size] = null;
+    }
+
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        selected.clear();
+        major.clear();
+        Arrays.fill(semesterCounts, 0);
+        size = 0;
+    }
+
+    public void setSelected(int index, boolean value) {
+        checkIndex(index);
+        selected.set(index, value);
+    }
+
+    public long getId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    public String getName(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    public double getCredit(int index) {
+        checkIndex(index);
+        return credits[index];
+    }
+
+    public double getScore(int index) {
+        checkIndex(index);
+        return scores[index];
+    }
+
+    public int getTypeOrdinal(int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    public Course.CourseType getType(int index) {
+        return TYPES[getTypeOrdinal(index)];
+    }
+
+    public int getSemesterId(int index) {
+        checkIndex(index);
+        return semesterIds[index];
+    }
+
+    public String getSemester(int index) {
+        return semesters.get(getSemesterId(index));
+    }
+
+    public boolean isSelected(int index) {
+        checkIndex(index);
+        return selected.get(index);
+    }
+
+    public boolean isMajorCourse(int index) {
+        checkIndex(index);
+        return major.get(index);
+    }
+
+    // 生成第index门课程的对象视图，修改该对象不会影响存储
+    public Course get(int index) {
+        checkIndex(index);
+        Course course = new Course(ids[index], names[index], credits[index], scores[index], selected.get(index),
+            semesters.get(semesterIds[index]), TYPES[types[index]]);
+        course.setMajorCourse(major.get(index));
+        course.setOriginalIndex(index);
+        return course;
+    }
+
+    // 学期名对应的编号，不存在时返回-1
+    public int semesterId(String semester) {
+        Integer id = semesterIndex.get(semester);
+        return id == null ? -1 : id;
+    }
+
+    public String semesterName(int semesterId) {
+        return semesters.get(semesterId);
+    }
+
+    // 学期编号的上界（不含），用于按编号遍历学期字典
+    public int semesterIdLimit() {
+        return semesters.size();
+    }
+
+    // 该学期当前的课程数，为0表示学期已不再使用
+    public int semesterCourseCount(int semesterId) {
+        return semesterId >= 0 && semesterId < semesters.size() ? semesterCounts[semesterId] : 0;
+    }
+
+    // 把满足条件的课程下标依次写入out，返回个数；semesterId或typeOrdinal为-1表示不限
+    // out长度不足时只写入前out.length个，但返回值仍是匹配总数，调用方可据此扩容后重试
+    public int select(int semesterId, int typeOrdinal, int[] out) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if ((semesterId < 0 || semesterIds[i] == semesterId)
+                && (typeOrdinal < 0 || types[i] == typeOrdinal)) {
+                if (count < out.length) {
+                    out[count] = i;
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 把全部课程的列数据累加到aggregates
+    void addTo(GPAAggregates aggregates) {
+        for (int i = selected.nextSetBit(0); i >= 0 && i < size; i = selected.nextSetBit(i + 1)) {
+            aggregates.add(types[i], credits[i], scores[i]);
+        }
+    }
+
+    // 把全部课程的列数据按学期累加到aggregates
+    void addTo(SemesterAggregates aggregates) {
+        for (int i = selected.nextSetBit(0); i >= 0 && i < size; i = selected.nextSetBit(i + 1)) {
+            aggregates.add(semesterIds[i], types[i], credits[i], scores[i]);
+        }
+    }
+
+    private void write(int index, Course course) {
+        ids[index] = course.getId();
+        names[index] = course.getName();
+        credits[index] = course.getCredit();
+        scores[index] = course.getScore();
+        types[index] = (byte) course.getCourseType().ordinal();
+        int semesterId = internSemester(course.getSemester());
+        semesterIds[index] = semesterId;
+        semesterCounts[semesterId]++;
+        selected.set(index, course.isSelected());
+        major.set(index, course.isMajorCourse());
+    }
+
+    private int internSemester(String semester) {
+        Integer id = semesterIndex.get(semester);
+        if (id == null) {
+            id = semesters.size();
+            semesters.add(semester);
+            semesterIndex.put(semester, id);
+            if (id >= semesterCounts.length) {
+                semesterCounts = Arrays.copyOf(semesterCounts, semesterCounts.length * 2);
+            }
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= names.length) return;
+        int newCapacity = Math.max(capacity, names.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        credits = Arrays.copyOf(credits, newCapacity);
+        scores = Arrays.copyOf(scores, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        semesterIds = Arrays.copyOf(semesterIds, newCapacity);
+    }
+
+    // 删除位index后，其后的位整体前移一位
+    private void shiftDown(BitSet bits, int index) {
+        for (int i = index; i < size - 1; i++) {
+            bits.set(i, bits.get(i + 1));
+        }
+        bits.clear(size - 1);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("course index " + index + " out of range");
+        }
+    }
+}
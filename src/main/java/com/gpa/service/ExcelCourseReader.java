@@ -0,0 +1,254 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.apache.poi.ooxml.POIXMLProperties;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.officeDocument.x2006.customProperties.CTProperty;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+// 从Excel读取课程数据：默认基于SAX事件流逐行解码，内存占用与行数无关
+public final class ExcelCourseReader {
+    private static final int COLUMN_COUNT = ExcelCourseWriter.HEADERS.length;
+
+    private ExcelCourseReader() {
+    }
+
+    // 只读方式读取整个工作簿，不涉及日志和快照文件
+    public static List<Course> readAll(File file) throws IOException {
+        List<Course> courses = new ArrayList<>();
+        read(file, courses::add);
+        return courses;
+    }
+
+    // 流式读取，每解码一行就交给sink；文件结构无法按事件流解析时退回DOM方式
+    // 返回工作簿中记录的已合并日志序号，没有记录时为0
+    static long read(File file, Consumer<Course> sink) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new SheetHandler(strings, sink));
+                    parser.parse(new InputSource(sheet));
+                }
+            }
+            return journalSeq(new POIXMLProperties(pkg));
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException | XmlException e) {
+            System.err.println("Streaming read failed, falling back to workbook: " + e.getMessage());
+            return readWithWorkbook(file, sink);
+        }
+    }
+
+    // 原有的DOM读取方式：整个工作簿载入内存后逐个单元格转换
+    static long readWithWorkbook(File file, Consumer<Course> sink) throws IOException {
+        try (FileInputStream fis = new FileInputStream(file);
+             XSSFWorkbook workbook = new XSSFWorkbook(fis)) {
+            Sheet sheet = workbook.getSheetAt(0);
+
+            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                Row row = sheet.getRow(i);
+                if (row != null) {
+                    // 只跳过无法解析的行，sink抛出的异常原样向上传递
+                    Course course;
+                    try {
+                        String name = getStringCellValue(row.getCell(0));
+                        double credit = getNumericCellValue(row.getCell(1));
+                        double score = getNumericCellValue(row.getCell(2));
+                        Course.CourseType type = Course.CourseType.valueOf(getStringCellValue(row.getCell(3)));
+                        String semester = getStringCellValue(row.getCell(4));
+                        boolean selected = getBooleanCellValue(row.getCell(5));
+                        course = new Course(name, credit, score, selected, semester, type);
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        System.err.println("Error reading row " + i + ": " + e.getMessage());
+                        continue;
+                    }
+                    sink.accept(course);
+                }
+            }
+            return journalSeq(workbook.getProperties());
+        }
+    }
+
+    private static long journalSeq(POIXMLProperties properties) {
+        CTProperty property = properties.getCustomProperties().getProperty(ExcelCourseWriter.JOURNAL_SEQ_PROPERTY);
+        if (property == null || !property.isSetLpwstr()) return 0;
+        try {
+            return Long.parseLong(property.getLpwstr().trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String getStringCellValue(Cell cell) {
+        if (cell == null) return "";
+        cell.setCellType(CellType.STRING);
+        return cell.getStringCellValue();
+    }
+
+    private static double getNumericCellValue(Cell cell) {
+        if (cell == null) return 0.0;
+        cell.setCellType(CellType.NUMERIC);
+        return cell.getNumericCellValue();
+    }
+
+    private static boolean getBooleanCellValue(Cell cell) {
+        if (cell == null) return false;
+        cell.setCellType(CellType.BOOLEAN);
+        return cell.getBooleanCellValue();
+    }
+
+    // 解析sheet XML：只保留当前行HEADERS范围内的六个单元格原始值
+    private static final class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable strings;
+        private final Consumer<Course> sink;
+        private final String[] values = new String[COLUMN_COUNT];
+        private final StringBuilder text = new StringBuilder();
+
+        private int rowIndex = -1;
+        private int column = -1;
+        private String cellType;
+        private boolean inValue;
+        private boolean hasValue;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, Consumer<Course> sink) {
+            this.strings = strings;
+            this.sink = sink;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                    for (int i = 0; i < COLUMN_COUNT; i++) {
+                        values[i] = null;
+                    }
+                    column = -1;
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? columnIndex(ref) : column + 1;
+                    cellType = attributes.getValue("t");
+                    text.setLength(0);
+                    hasValue = false;
+                    break;
+                case "v":
+                case "t":
+                    // 内联富文本可能包含多段t，统一累积到单元格结束
+                    inValue = true;
+                    hasValue = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    inValue = false;
+                    break;
+                case "c":
+                    if (hasValue && column >= 0 && column < COLUMN_COUNT) {
+                        values[column] = decodeCell();
+                    }
+                    break;
+                case "row":
+                    if (rowIndex >= 1) {
+                        emitRow();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // 解析单元格引用中的列字母，如"C12"得到2
+        private static int columnIndex(String ref) {
+            int col = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char ch = ref.charAt(i);
+                if (ch < 'A' || ch > 'Z') break;
+                col = col * 26 + (ch - 'A' + 1);
+            }
+            return col - 1;
+        }
+
+        private String decodeCell() {
+            if ("s".equals(cellType)) {
+                try {
+                    return strings.getItemAt(Integer.parseInt(text.toString().trim())).getString();
+                } catch (RuntimeException e) {
+                    return null; // 无效的共享字符串索引按空单元格处理
+                }
+            }
+            return text.toString();
+        }
+
+        // 只跳过无法解析的行，sink抛出的异常原样向上传递
+        private void emitRow() {
+            Course course;
+            try {
+                String name = stringValue(values[0]);
+                double credit = numericValue(values[1]);
+                double score = numericValue(values[2]);
+                Course.CourseType type = Course.CourseType.valueOf(stringValue(values[3]));
+                String semester = stringValue(values[4]);
+                boolean selected = booleanValue(values[5]);
+                course = new Course(name, credit, score, selected, semester, type);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error reading row " + rowIndex + ": " + e.getMessage());
+                return;
+            }
+            sink.accept(course);
+        }
+
+        private static String stringValue(String value) {
+            return value == null ? "" : value;
+        }
+
+        private static double numericValue(String value) {
+            return value == null || value.isEmpty() ? 0.0 : Double.parseDouble(value.trim());
+        }
+
+        private static boolean booleanValue(String value) {
+            if (value == null) return false;
+            String v = value.trim();
+            return "1".equals(v) || "true".equalsIgnoreCase(v);
+        }
+    }
+}
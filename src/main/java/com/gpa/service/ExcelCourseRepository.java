@@ -0,0 +1,295 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+// 基于Excel工作簿的课程存储：修改追加到日志，后台定期合并成新的工作簿和二进制快照
+// 日志记录在调用线程上写入文件，刷盘在保存线程上分组进行：SYNC_DELAY_MILLIS内的多次修改只刷一次
+// 系统属性gpa.journal.sync=always时改为每次修改都在调用线程上刷盘
+public class ExcelCourseRepository implements CourseRepository {
+    // Excel保存方式：STANDARD为常规模式，STREAMING为流式模式，AUTO按课程数量自动选择
+    public enum SaveMode {
+        AUTO,
+        STANDARD,
+        STREAMING
+    }
+
+    static final int STREAMING_THRESHOLD = 2000;              // AUTO模式下超过该课程数时使用流式保存
+    private static final long COMPACT_DELAY_MILLIS = 2000;     // 最后一次修改后合并日志的静默时间
+    private static final long COMPACT_MAX_DELAY_MILLIS = 30000; // 首次修改后最长合并延迟
+    private static final long SYNC_DELAY_MILLIS = 50;           // 日志分组刷盘的间隔
+    public static final String JOURNAL_SYNC_PROPERTY = "gpa.journal.sync";
+
+    private final File workbookFile;
+    private final File snapshotFile;
+    private final CourseJournal journal;
+    private final boolean syncEachRecord;
+    private final ScheduledExecutorService ownedExecutor; // 未传入共用线程池时自建的保存线程
+    private final WriteBehindSaver saver;
+    private final WriteBehindSaver syncer; // 分组刷盘，与合并使用同一线程池
+    private final List<Course> courses = new ArrayList<>(); // 已持久化内容的副本，仅在锁内修改
+    private volatile SaveMode saveMode = SaveMode.AUTO;
+    private volatile Consumer<Exception> errorHandler = Throwable::printStackTrace;
+
+    public ExcelCourseRepository(File workbookFile) {
+        this(workbookFile, null);
+    }
+
+    // saveExecutor为多个存储共用的后台线程池，由调用方负责关闭；为null时独占一个保存线程
+    public ExcelCourseRepository(File workbookFile, ScheduledExecutorService saveExecutor) {
+        this.workbookFile = workbookFile;
+        this.snapshotFile = new File(workbookFile.getPath() + ".bin");
+        this.syncEachRecord = "always".equalsIgnoreCase(System.getProperty(JOURNAL_SYNC_PROPERTY));
+        this.journal = new CourseJournal(new File(workbookFile.getPath() + ".journal"), syncEachRecord);
+        this.ownedExecutor = saveExecutor != null ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "score-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService executor = saveExecutor != null ? saveExecutor : ownedExecutor;
+        this.saver = new WriteBehindSaver(this::compact, COMPACT_DELAY_MILLIS, COMPACT_MAX_DELAY_MILLIS, executor);
+        this.syncer = new WriteBehindSaver(journal::sync, SYNC_DELAY_MILLIS, SYNC_DELAY_MILLIS, executor);
+    }
+
+    // 只读地取得当前课程：工作簿加上其后尚未合并的日志，不创建、不修改任何文件，可在程序运行时读取
+    // 日志与工作簿之间缺少记录时（合并恰好进行到一半）抛出IOException，稍后重试即可
+    public static List<Course> readCurrent(File workbookFile) throws IOException {
+        List<Course> courses = new ArrayList<>();
+        long workbookSeq = ExcelCourseReader.read(workbookFile, courses::add);
+        long firstSeq = CourseJournal.replay(new File(workbookFile.getPath() + ".journal"), workbookSeq,
+            new ListReplay(courses));
+        if (firstSeq > workbookSeq + 1) {
+            throw new IOException("日志与工作簿不连续，可能正在合并，请稍后重试：" + workbookFile);
+        }
+        return courses;
+    }
+
+    public File getWorkbookFile() {
+        return workbookFile;
+    }
+
+    public SaveMode getSaveMode() {
+        return saveMode;
+    }
+
+    public void setSaveMode(SaveMode saveMode) {
+        this.saveMode = saveMode;
+    }
+
+    @Override
+    public void setErrorHandler(Consumer<Exception> handler) {
+        this.errorHandler = handler;
+        saver.setErrorHandler(handler);
+        syncer.setErrorHandler(handler);
+    }
+
+    // 读取最近一次合并的工作簿（工作簿未变化时直接使用二进制快照），再重放其后追加的日志
+    // 工作簿中的课程边解析边交给replay，回放的都是副本
+    @Override
+    public synchronized void load(Replay replay) throws IOException {
+        long start = Metrics.start();
+        courses.clear();
+        long workbookSeq = 0;
+        if (!workbookFile.exists()) {
+            ExcelCourseWriter.write(new ArrayList<>(), workbookFile, false, 0);
+        } else {
+            BinaryCourseSnapshot.Loaded snapshot = BinaryCourseSnapshot.read(snapshotFile, workbookFile);
+            if (snapshot != null) {
+                for (Course course : snapshot.courses) {
+                    courses.add(course);
+                    replay.add(course.copy());
+                }
+                workbookSeq = snapshot.journalSeq;
+            } else {
+                workbookSeq = ExcelCourseReader.read(workbookFile, course -> {
+                    courses.add(course);
+                    replay.add(course.copy());
+                });
+                writeSnapshot(courses, workbookSeq);
+            }
+        }
+
+        journal.open(workbookSeq, new JournalReplay(replay));
+        if (journal.getRecordCount() > 0) {
+            // 上次退出时仍有未合并的日志，启动后在后台合并
+            saver.requestSave();
+        }
+        Metrics.recordLoad(start, courses.size());
+    }
+
+    @Override
+    public synchronized void added(Course course) throws IOException {
+        courses.add(course.copy());
+        record(CourseJournal.ADD, courses.size() - 1, course);
+    }
+
+    // 整批记录一次写入日志，只安排一次合并
+    @Override
+    public synchronized void addedAll(List<Course> added) throws IOException {
+        int firstIndex = courses.size();
+        for (Course course : added) {
+            courses.add(course.copy());
+        }
+        saver.requestSave();
+        journal.appendAdds(firstIndex, added);
+        requestSync();
+    }
+
+    @Override
+    public synchronized void removed(int index, Course course) throws IOException {
+        courses.remove(index);
+        record(CourseJournal.REMOVE, index, null);
+    }
+
+    @Override
+    public synchronized void updated(int index, Course previous, Course current) throws IOException {
+        courses.set(index, current.copy());
+        record(CourseJournal.UPDATE, index, current);
+    }
+
+    @Override
+    public synchronized void toggled(int index, Course course) throws IOException {
+        courses.set(index, course.copy());
+        record(CourseJournal.TOGGLE, index, null);
+    }
+
+    // 修改先追加到日志（只写入本次变化），再安排后台合并进工作簿；日志写入失败时仍会在合并时保存
+    private void record(byte op, int index, Course course) throws IOException {
+        saver.requestSave();
+        journal.append(op, index, course);
+        requestSync();
+    }
+
+    private void requestSync() {
+        if (!syncEachRecord) {
+            syncer.requestSave();
+        }
+    }
+
+    @Override
+    public void flush() {
+        syncer.flush();
+        saver.flush();
+    }
+
+    // 先写完剩余的合并和刷盘再关闭日志，最后停止自建的保存线程
+    @Override
+    public void close() {
+        saver.close();
+        syncer.close();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            errorHandler.accept(e);
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    // 在锁内取得课程列表和日志序号，随后在保存线程写出工作簿并截断已合并的日志
+    private void compact() throws IOException {
+        List<Course> snapshot;
+        long journalSeq;
+        synchronized (this) {
+            snapshot = new ArrayList<>(courses);
+            journalSeq = journal.getLastSeq();
+        }
+        SaveMode mode = saveMode;
+        boolean streaming = mode == SaveMode.STREAMING
+            || (mode == SaveMode.AUTO && snapshot.size() >= STREAMING_THRESHOLD);
+        ExcelCourseWriter.write(snapshot, workbookFile, streaming, journalSeq);
+        writeSnapshot(snapshot, journalSeq);
+        journal.truncateThrough(journalSeq);
+    }
+
+    // 快照只是加速启动的缓存，写入失败不影响数据
+    private void writeSnapshot(List<Course> snapshot, long journalSeq) {
+        try {
+            BinaryCourseSnapshot.write(snapshotFile, workbookFile, snapshot, journalSeq);
+        } catch (IOException e) {
+            System.err.println("Error writing snapshot " + snapshotFile + ": " + e.getMessage());
+        }
+    }
+
+    // 把日志记录依次应用到课程列表，下标越界的记录视为无效
+    private static class ListReplay implements CourseJournal.Visitor {
+        private final List<Course> courses;
+
+        ListReplay(List<Course> courses) {
+            this.courses = courses;
+        }
+
+        @Override
+        public void add(Course course) {
+            courses.add(course);
+        }
+
+        @Override
+        public void remove(int index) {
+            checkIndex(index);
+            courses.remove(index);
+        }
+
+        @Override
+        public void update(int index, Course course) {
+            checkIndex(index);
+            courses.set(index, course);
+        }
+
+        @Override
+        public void toggle(int index) {
+            checkIndex(index);
+            Course course = courses.get(index).copy();
+            course.setSelected(!course.isSelected());
+            courses.set(index, course);
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= courses.size()) {
+                throw new IllegalArgumentException("course index " + index + " out of range");
+            }
+        }
+    }
+
+    // 启动时把日志记录依次应用到刚读取的课程列表，有效的记录再转交给replay
+    private class JournalReplay extends ListReplay {
+        private final Replay replay;
+
+        JournalReplay(Replay replay) {
+            super(courses);
+            this.replay = replay;
+        }
+
+        @Override
+        public void add(Course course) {
+            super.add(course);
+            replay.add(course.copy());
+        }
+
+        @Override
+        public void remove(int index) {
+            super.remove(index);
+            replay.remove(index);
+        }
+
+        @Override
+        public void update(int index, Course course) {
+            super.update(index, course);
+            replay.update(index, course.copy());
+        }
+
+        @Override
+        public void toggle(int index) {
+            super.toggle(index);
+            replay.toggle(index);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+// 课程数据写入Excel，支持常规模式和适合大文件的流式模式
+final class ExcelCourseWriter {
+    static final String SHEET_NAME = "课程信息";
+    static final String[] HEADERS = {"课程名称", "学分", "成绩", "课程类型", "学期", "是否计入GPA"};
+    static final String JOURNAL_SEQ_PROPERTY = "journalSeq"; // 已合并进工作簿的最后一条日志序号
+
+    private static final int ROW_WINDOW = 100;       // 流式模式下内存中保留的行数
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+
+    private ExcelCourseWriter() {
+    }
+
+    // 先写入临时文件再原子替换，写到一半崩溃不会破坏原工作簿
+    static void write(List<Course> courses, File file, boolean streaming, long journalSeq) throws IOException {
+        long start = Metrics.start();
+        File tmp = new File(file.getPath() + ".tmp");
+        if (streaming) {
+            writeStreaming(courses, tmp, journalSeq);
+        } else {
+            writeStandard(courses, tmp, journalSeq);
+        }
+        CourseJournal.moveAtomically(tmp, file);
+        Metrics.recordSave(start, file.length(), courses.size());
+    }
+
+    // 常规模式：整个工作簿在内存中构建，按字体自动调整列宽
+    private static void writeStandard(List<Course> courses, File file, long journalSeq) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = writeSheet(workbook, courses, null);
+            setJournalSeq(workbook, journalSeq);
+
+            // 自动调整列宽
+            for (int i = 0; i < HEADERS.length; i++) {
+                sheet.autoSizeColumn(i);
+            }
+
+            // 写入文件
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                workbook.write(fos);
+            }
+        }
+    }
+
+    // 流式模式：只在内存中保留滑动窗口内的行，列宽按字符数估算
+    private static void writeStreaming(List<Course> courses, File file, long journalSeq) throws IOException {
+        // 使用共享字符串表，与常规模式生成的单元格类型一致
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, ROW_WINDOW, false, true);
+        try {
+            int[] columnChars = new int[HEADERS.length];
+            Sheet sheet = writeSheet(workbook, courses, columnChars);
+            setJournalSeq(workbook.getXSSFWorkbook(), journalSeq);
+
+            for (int i = 0; i < HEADERS.length; i++) {
+                sheet.setColumnWidth(i, Math.min(MAX_COLUMN_WIDTH, (columnChars[i] + 2) * 256));
+            }
+
+            // 写入文件
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                workbook.write(fos);
+            }
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static void setJournalSeq(XSSFWorkbook workbook, long journalSeq) {
+        workbook.getProperties().getCustomProperties().addProperty(JOURNAL_SEQ_PROPERTY, String.valueOf(journalSeq));
+    }
+
+    // 写入标题行和数据行，columnChars不为空时同时统计每列最大显示宽度
+    private static Sheet writeSheet(Workbook workbook, List<Course> courses, int[] columnChars) {
+        Sheet sheet = workbook.createSheet(SHEET_NAME);
+
+        // 创建标题行样式
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerStyle.setFont(headerFont);
+        headerStyle.setAlignment(HorizontalAlignment.CENTER);
+
+        // 创建标题行
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(HEADERS[i]);
+            cell.setCellStyle(headerStyle);
+            measure(columnChars, i, HEADERS[i]);
+        }
+
+        // 创建数据行
+        CellStyle dataStyle = workbook.createCellStyle();
+        dataStyle.setAlignment(HorizontalAlignment.CENTER);
+
+        for (int i = 0; i < courses.size(); i++) {
+            Row row = sheet.createRow(i + 1);
+            Course course = courses.get(i);
+
+            Cell nameCell = row.createCell(0);
+            nameCell.setCellValue(course.getName());
+            nameCell.setCellStyle(dataStyle);
+
+            Cell creditCell = row.createCell(1);
+            creditCell.setCellValue(course.getCredit());
+            creditCell.setCellStyle(dataStyle);
+
+            Cell scoreCell = row.createCell(2);
+            scoreCell.setCellValue(course.getScore());
+            scoreCell.setCellStyle(dataStyle);
+
+            Cell typeCell = row.createCell(3);
+            typeCell.setCellValue(course.getCourseType().name());
+            typeCell.setCellStyle(dataStyle);
+
+            Cell semesterCell = row.createCell(4);
+            semesterCell.setCellValue(course.getSemester());
+            semesterCell.setCellStyle(dataStyle);
+
+            Cell selectedCell = row.createCell(5);
+            selectedCell.setCellValue(course.isSelected());
+            selectedCell.setCellStyle(dataStyle);
+
+            if (columnChars != null) {
+                measure(columnChars, 0, course.getName());
+                measure(columnChars, 1, String.valueOf(course.getCredit()));
+                measure(columnChars, 2, String.valueOf(course.getScore()));
+                measure(columnChars, 3, course.getCourseType().name());
+                measure(columnChars, 4, course.getSemester());
+                measure(columnChars, 5, course.isSelected() ? "TRUE" : "FALSE");
+            }
+        }
+        return sheet;
+    }
+
+    // 按字符数估算显示宽度，中日韩等全角字符按两个字符计算
+    private static void measure(int[] columnChars, int column, String text) {
+        if (columnChars == null || text == null) return;
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += text.charAt(i) >= 0x2E80 ? 2 : 1;
+        }
+        if (width > columnChars[column]) {
+            columnChars[column] = width;
+        }
+    }
+}
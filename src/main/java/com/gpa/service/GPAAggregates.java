@@ -0,0 +1,139 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.util.List;
+
+// 按课程类型累计的学分加权和，课程增删改时增量维护，读取统计为常数时间
+final class GPAAggregates {
+    private static final double TOLERANCE = 1e-6;
+
+    private final List<GradingScale> scales;
+    private final GradingScale[] scaleArray;
+    private final int typeCount = Course.CourseType.values().length;
+    private final int[] courseCounts = new int[typeCount];
+    private final double[] credits = new double[typeCount];
+    private final double[] weightedScores = new double[typeCount];
+    private final double[][] weightedPoints; // [算法][课程类型]
+
+    GPAAggregates(List<GradingScale> scales) {
+        this.scales = scales;
+        this.scaleArray = scales.toArray(new GradingScale[0]);
+        this.weightedPoints = new double[scaleArray.length][typeCount];
+    }
+
+    void add(Course course) {
+        if (course.isSelected()) {
+            apply(course.getCourseType().ordinal(), course.getCredit(), course.getScore(), 1);
+        }
+    }
+
+    void remove(Course course) {
+        if (course.isSelected()) {
+            apply(course.getCourseType().ordinal(), course.getCredit(), course.getScore(), -1);
+        }
+    }
+
+    // 直接按列数据累加一门计入GPA的课程，供按列扫描使用
+    void add(int typeOrdinal, double credit, double score) {
+        apply(typeOrdinal, credit, score, 1);
+    }
+
+    void clear() {
+        for (int t = 0; t < typeCount; t++) {
+            reset(t);
+        }
+    }
+
+    private void apply(int t, double courseCredit, double score, int sign) {
+        double credit = sign * courseCredit;
+
+        courseCounts[t] += sign;
+        if (courseCounts[t] == 0) {
+            // 该类型已无计入课程，直接归零以消除浮点累积误差
+            reset(t);
+            return;
+        }
+        credits[t] += credit;
+        weightedScores[t] += score * credit;
+        for (int s = 0; s < scaleArray.length; s++) {
+            weightedPoints[s][t] += scaleArray[s].gradePoint(score) * credit;
+        }
+    }
+
+    private void reset(int t) {
+        courseCounts[t] = 0;
+        credits[t] = 0;
+        weightedScores[t] = 0;
+        for (int s = 0; s < scaleArray.length; s++) {
+            weightedPoints[s][t] = 0;
+        }
+    }
+
+    GPASummary toSummary() {
+        double totalCredits = 0;
+        double totalScore = 0;
+        double[] totals = new double[scaleArray.length];
+        double[] typeAverages = new double[typeCount];
+        for (int t = 0; t < typeCount; t++) {
+            if (courseCounts[t] == 0 || credits[t] == 0) continue;
+            totalCredits += credits[t];
+            totalScore += weightedScores[t];
+            for (int s = 0; s < scaleArray.length; s++) {
+                totals[s] += weightedPoints[s][t];
+            }
+            typeAverages[t] = weightedScores[t] / credits[t];
+        }
+
+        if (totalCredits == 0) {
+            return GPASummary.empty(scales);
+        }
+        for (int s = 0; s < totals.length; s++) {
+            totals[s] /= totalCredits;
+        }
+        return new GPASummary(scales, totalScore / totalCredits, totals, typeAverages);
+    }
+
+    // 各类型合计的学分和加权和，供按学期生成前缀和使用
+
+    double totalCredits() {
+        double total = 0;
+        for (int t = 0; t < typeCount; t++) {
+            total += credits[t];
+        }
+        return total;
+    }
+
+    double totalWeightedScore() {
+        double total = 0;
+        for (int t = 0; t < typeCount; t++) {
+            total += weightedScores[t];
+        }
+        return total;
+    }
+
+    double totalWeightedPoints(int scaleIndex) {
+        double total = 0;
+        for (int t = 0; t < typeCount; t++) {
+            total += weightedPoints[scaleIndex][t];
+        }
+        return total;
+    }
+
+    // 比较两组累计值是否一致（容忍浮点误差），用于一致性校验
+    boolean matches(GPAAggregates other) {
+        for (int t = 0; t < typeCount; t++) {
+            if (courseCounts[t] != other.courseCounts[t]) return false;
+            if (!close(credits[t], other.credits[t])) return false;
+            if (!close(weightedScores[t], other.weightedScores[t])) return false;
+            for (int s = 0; s < scaleArray.length; s++) {
+                if (!close(weightedPoints[s][t], other.weightedPoints[s][t])) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean close(double a, double b) {
+        return Math.abs(a - b) <= TOLERANCE * Math.max(1.0, Math.max(Math.abs(a), Math.abs(b)));
+    }
+}
@@ -1,402 +1,512 @@
 package com.gpa.service;
 
 import com.gpa.model.Course;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import javax.swing.JOptionPane;
-
-public class GPACalculator {
-    private final List<Course> courses;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// 创建后需调用load()或beginLoad()读取已保存的课程
+// 修改方法在计算器的锁内执行，每次修改后发布新的不可变快照；读取快照和统计结果不需要加锁
+public class GPACalculator implements Closeable {
+    private final CopyOnWriteCourses courses = new CopyOnWriteCourses();
+    private final AtomicReference<CourseSnapshot> snapshot;
+    private final CourseStore store = new CourseStore(); // 与courses逐条对应的列存储，供统计和筛选扫描
+    private final Map<Long, Integer> indexById = new HashMap<>(); // 课程编号到列表下标的索引
+    private final CourseSearchIndex searchIndex = new CourseSearchIndex(); // 课程名称搜索索引
+    private final List<GradingScale> gradingScales;
+    private final GPAAggregates aggregates;
+    private final SemesterAggregates semesterAggregates; // 按学期的累计值，供学期趋势使用
+    private final CourseRepository repository;
+    private volatile boolean consistencyCheckEnabled;
+    private final List<CourseEvent.Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Consumer<Exception> saveErrorHandler = Throwable::printStackTrace;
     private static final String EXCEL_FILE = "score.xlsx";
-    private static final String[] HEADERS = {"课程名称", "学分", "成绩", "课程类型", "学期", "是否计入GPA"};
+    private static final String DATABASE_FILE = "score";
+    private static final String REPOSITORY_PROPERTY = "gpa.repository"; // excel（默认）或sql
 
     public GPACalculator() {
-        courses = new ArrayList<>();
-        loadFromExcel();
+        this(GradingScales.load());
     }
 
-    public void addCourse(Course course) {
-        courses.add(course);
-        saveToExcel();
+    public GPACalculator(List<GradingScale> gradingScales) {
+        this(gradingScales, createDefaultRepository());
     }
 
-    public void removeCourse(int index) {
-        if (index >= 0 && index < courses.size()) {
-            courses.remove(index);
-            saveToExcel();
-        }
+    public GPACalculator(List<GradingScale> gradingScales, CourseRepository repository) {
+        this.gradingScales = gradingScales;
+        this.aggregates = new GPAAggregates(gradingScales);
+        this.semesterAggregates = new SemesterAggregates(gradingScales);
+        this.repository = repository;
+        this.snapshot = new AtomicReference<>(courses.snapshot(0, GPASummary.empty(gradingScales)));
     }
 
-    public void updateCourse(int index, Course course) {
-        if (index >= 0 && index < courses.size()) {
-            courses.set(index, course);
-            saveToExcel();
+    // 按系统属性gpa.repository选择存储方式；sql首次启动时会导入已有的score.xlsx
+    private static CourseRepository createDefaultRepository() {
+        String type = System.getProperty(REPOSITORY_PROPERTY, "excel");
+        if ("sql".equalsIgnoreCase(type)) {
+            return SqlCourseRepository.embedded(new File(DATABASE_FILE), new File(EXCEL_FILE));
         }
+        return new ExcelCourseRepository(new File(EXCEL_FILE));
     }
 
-    public void toggleCourseSelection(int index) {
-        if (index >= 0 && index < courses.size()) {
-            Course course = courses.get(index);
-            course.setSelected(!course.isSelected());
-            saveToExcel();
-        }
+    public CourseRepository getRepository() {
+        return repository;
     }
 
-    public List<Course> getCourses() {
-        return courses;
+    // 保存失败时的回调，可能在保存线程上调用
+    public void setSaveErrorHandler(Consumer<Exception> handler) {
+        saveErrorHandler = handler;
+        repository.setErrorHandler(handler);
     }
 
-    // 按学期分组获取课程
-    public Map<String, List<Course>> getCoursesBySemester() {
-        return courses.stream()
-            .collect(Collectors.groupingBy(Course::getSemester));
+    // 立即写出尚未保存的修改
+    public void flush() {
+        repository.flush();
     }
 
-    // 按课程类型分组获取课程
-    public Map<Course.CourseType, List<Course>> getCoursesByType() {
-        return courses.stream()
-            .collect(Collectors.groupingBy(Course::getCourseType));
+    @Override
+    public void close() {
+        repository.close();
     }
 
-    // 计算加权平均分
-    public double calculateAverageScore() {
-        double totalWeightedScore = 0;
-        double totalCredits = 0;
+    // 新增和修改时保存传入课程的只读副本（编号不变），调用方之后修改原对象不会影响统计和已发布的快照
+    // 计算器返回的课程（快照、findById等）都是只读的，读取方调用setter会抛出UnsupportedOperationException
+    public synchronized void addCourse(Course course) {
+        course = course.readOnlyCopy();
+        applyAdd(course);
+        publish();
+        try {
+            repository.added(course);
+        } catch (IOException e) {
+            saveErrorHandler.accept(e);
+        }
+        fire(CourseEvent.single(CourseEvent.Type.ADDED, course.getId(), courses.size() - 1));
+    }
+
+    // 批量新增课程：统计只重算一次，整批一次保存，只发布一个BATCH_ADDED事件
+    public synchronized void addCourses(Collection<Course> added) {
+        if (added.isEmpty()) return;
+        List<Course> batch = new ArrayList<>(added.size());
+        for (Course course : added) {
+            batch.add(course.readOnlyCopy());
+        }
+        int firstIndex = courses.size();
+        long[] ids = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Course course = batch.get(i);
+            courses.add(course);
+            store.add(course);
+            indexById.put(course.getId(), firstIndex + i);
+            searchIndex.add(course.getId(), course.getName());
+            ids[i] = course.getId();
+        }
+        rebuildAggregates();
+        onAggregatesChanged();
+        publish();
+        try {
+            repository.addedAll(batch);
+        } catch (IOException e) {
+            saveErrorHandler.accept(e);
+        }
+        fire(CourseEvent.batchAdded(firstIndex, ids));
+    }
 
-        for (Course course : courses) {
-            if (course.isSelected()) {
-                totalWeightedScore += course.getScore() * course.getCredit();
-                totalCredits += course.getCredit();
+    public synchronized void removeCourse(int index) {
+        if (index >= 0 && index < courses.size()) {
+            Course removed = applyRemove(index);
+            publish();
+            try {
+                repository.removed(index, removed);
+            } catch (IOException e) {
+                saveErrorHandler.accept(e);
             }
+            fire(CourseEvent.single(CourseEvent.Type.REMOVED, removed.getId(), index));
         }
+    }
 
-        return totalCredits == 0 ? 0 : totalWeightedScore / totalCredits;
+    public synchronized void updateCourse(int index, Course course) {
+        if (index >= 0 && index < courses.size()) {
+            course = course.readOnlyCopy();
+            Course previous = applyUpdate(index, course);
+            publish();
+            try {
+                repository.updated(index, previous, course);
+            } catch (IOException e) {
+                saveErrorHandler.accept(e);
+            }
+            fire(CourseEvent.updated(previous.getId(), course.getId(), index));
+        }
     }
 
-    // 计算标准五分制GPA
-    public double calculateStandardFiveGPA() {
-        double totalWeightedGPA = 0;
-        double totalCredits = 0;
-
-        for (Course course : courses) {
-            if (course.isSelected()) {
-                double score = course.getScore();
-                double gpa;
-                
-                if (score >= 95) gpa = 5.0;
-                else if (score >= 90) gpa = 4.5;
-                else if (score >= 85) gpa = 4.0;
-                else if (score >= 80) gpa = 3.5;
-                else if (score >= 75) gpa = 3.0;
-                else if (score >= 70) gpa = 2.5;
-                else if (score >= 65) gpa = 2.0;
-                else if (score >= 60) gpa = 1.0;
-                else gpa = 0.0;
-
-                totalWeightedGPA += gpa * course.getCredit();
-                totalCredits += course.getCredit();
+    public synchronized void toggleCourseSelection(int index) {
+        if (index >= 0 && index < courses.size()) {
+            Course course = applyToggle(index);
+            publish();
+            try {
+                repository.toggled(index, course);
+            } catch (IOException e) {
+                saveErrorHandler.accept(e);
             }
+            fire(CourseEvent.single(CourseEvent.Type.SELECTION_TOGGLED, course.getId(), index));
         }
+    }
+
+    // 以下apply方法只修改内存中的数据和索引，不写入存储、不发布事件
 
-        return totalCredits == 0 ? 0 : totalWeightedGPA / totalCredits;
+    private void applyAdd(Course course) {
+        courses.add(course);
+        store.add(course);
+        indexById.put(course.getId(), courses.size() - 1);
+        searchIndex.add(course.getId(), course.getName());
+        aggregates.add(course);
+        semesterAggregates.add(store.getSemesterId(courses.size() - 1), course);
+        onAggregatesChanged();
     }
 
-    // 计算标准四分制GPA
-    public double calculateStandardFourGPA() {
-        double totalWeightedGPA = 0;
-        double totalCredits = 0;
-
-        for (Course course : courses) {
-            if (course.isSelected()) {
-                double score = course.getScore();
-                double gpa;
-                
-                if (score >= 90) gpa = 4.0;
-                else if (score >= 80) gpa = 3.0;
-                else if (score >= 70) gpa = 2.0;
-                else if (score >= 60) gpa = 1.0;
-                else gpa = 0.0;
-
-                totalWeightedGPA += gpa * course.getCredit();
-                totalCredits += course.getCredit();
-            }
+    private Course applyRemove(int index) {
+        Course removed = courses.remove(index);
+        semesterAggregates.remove(store.getSemesterId(index), removed);
+        store.remove(index);
+        indexById.remove(removed.getId());
+        searchIndex.remove(removed.getId());
+        reindexFrom(index);
+        aggregates.remove(removed);
+        onAggregatesChanged();
+        return removed;
+    }
+
+    private Course applyUpdate(int index, Course course) {
+        Course previous = courses.set(index, course);
+        int previousSemesterId = store.getSemesterId(index);
+        store.set(index, course);
+        if (previous.getId() != course.getId()) {
+            indexById.remove(previous.getId());
+            indexById.put(course.getId(), index);
+            searchIndex.remove(previous.getId());
         }
+        searchIndex.update(course.getId(), course.getName());
+        aggregates.remove(previous);
+        aggregates.add(course);
+        semesterAggregates.remove(previousSemesterId, previous);
+        semesterAggregates.add(store.getSemesterId(index), course);
+        onAggregatesChanged();
+        return previous;
+    }
 
-        return totalCredits == 0 ? 0 : totalWeightedGPA / totalCredits;
+    // 以切换后的副本替换原课程，已发布快照中的课程对象保持不变
+    private Course applyToggle(int index) {
+        Course previous = courses.get(index);
+        Course toggled = previous.copy();
+        toggled.setSelected(!previous.isSelected());
+        Course course = toggled.readOnlyCopy();
+        courses.set(index, course);
+        aggregates.remove(previous);
+        store.setSelected(index, course.isSelected());
+        aggregates.add(course);
+        int semesterId = store.getSemesterId(index);
+        semesterAggregates.remove(semesterId, previous);
+        semesterAggregates.add(semesterId, course);
+        onAggregatesChanged();
+        return course;
     }
 
-    // 计算北大四分制GPA
-    public double calculatePKUGPA() {
-        double totalWeightedGPA = 0;
-        double totalCredits = 0;
-
-        for (Course course : courses) {
-            if (course.isSelected()) {
-                double score = course.getScore();
-                double gpa;
-                
-                if (score >= 90) gpa = 4.0;
-                else if (score >= 85) gpa = 3.7;
-                else if (score >= 82) gpa = 3.3;
-                else if (score >= 78) gpa = 3.0;
-                else if (score >= 75) gpa = 2.7;
-                else if (score >= 72) gpa = 2.3;
-                else if (score >= 68) gpa = 2.0;
-                else if (score >= 64) gpa = 1.5;
-                else if (score >= 60) gpa = 1.0;
-                else gpa = 0.0;
-
-                totalWeightedGPA += gpa * course.getCredit();
-                totalCredits += course.getCredit();
-            }
+    // 发布当前课程和统计结果的新版本，只在锁内调用
+    private void publish() {
+        long start = Metrics.start();
+        CourseSnapshot previous = snapshot.get();
+        snapshot.set(courses.snapshot(previous.getVersion() + 1, aggregates.toSummary()));
+        Metrics.record(Metrics.Operation.SUMMARY, start);
+    }
+
+    public void addCourseListener(CourseEvent.Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeCourseListener(CourseEvent.Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fire(CourseEvent event) {
+        for (CourseEvent.Listener listener : listeners) {
+            listener.courseChanged(event);
         }
+    }
 
-        return totalCredits == 0 ? 0 : totalWeightedGPA / totalCredits;
+    // 按课程编号操作，编号不存在时不做任何修改
+    public synchronized void removeCourseById(long id) {
+        removeCourse(indexOf(id));
     }
 
-    // 计算大工算法GPA
-    public double calculateDGUTGPA() {
-        double totalWeightedGPA = 0;
-        double totalCredits = 0;
+    public synchronized void updateCourseById(long id, Course course) {
+        updateCourse(indexOf(id), course);
+    }
+
+    public synchronized void toggleCourseSelectionById(long id) {
+        toggleCourseSelection(indexOf(id));
+    }
 
-        for (Course course : courses) {
-            if (course.isSelected()) {
-                double score = course.getScore();
-                double gpa = (score - 50) / 10;
-                if (gpa < 0) gpa = 0;
+    // 课程编号对应的列表下标，不存在时返回-1
+    public synchronized int indexOf(long id) {
+        Integer index = indexById.get(id);
+        return index == null ? -1 : index;
+    }
 
-                totalWeightedGPA += gpa * course.getCredit();
-                totalCredits += course.getCredit();
-            }
+    // 按编号查找课程，不存在时返回null
+    public synchronized Course findById(long id) {
+        Integer index = indexById.get(id);
+        return index == null ? null : courses.get(index);
+    }
+
+    // 删除课程后其后的课程下标整体前移，同步更新索引
+    private void reindexFrom(int index) {
+        for (int i = index; i < courses.size(); i++) {
+            indexById.put(courses.get(i).getId(), i);
         }
+    }
 
-        return totalCredits == 0 ? 0 : totalWeightedGPA / totalCredits;
+    public List<GradingScale> getGradingScales() {
+        return gradingScales;
     }
 
-    // 计算专业课程均分
-    public double calculateMajorAverageScore() {
-        double totalWeightedScore = 0;
-        double totalCredits = 0;
+    // 当前版本的课程快照，不加锁，读取期间不受其他线程修改影响
+    public CourseSnapshot snapshot() {
+        return snapshot.get();
+    }
 
-        for (Course course : courses) {
-            if (course.isSelected() && course.getCourseType() == Course.CourseType.MAJOR) {
-                totalWeightedScore += course.getScore() * course.getCredit();
-                totalCredits += course.getCredit();
+    // 当前版本课程的只读列表
+    public List<Course> getCourses() {
+        return snapshot.get().getCourses();
+    }
+
+    // 课程的列存储视图，只能在修改课程的同一线程（通常是EDT）上读取
+    public CourseStore getCourseStore() {
+        return store;
+    }
+
+    // 课程名称搜索索引，与列存储一样只能在修改课程的同一线程上读取
+    public CourseSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    // 按学期分组获取课程，按学期编号分桶，不对每门课程做字符串哈希；按学期先后排列
+    public synchronized Map<String, List<Course>> getCoursesBySemester() {
+        long start = Metrics.start();
+        List<List<Course>> buckets = new ArrayList<>(store.semesterIdLimit());
+        for (int id = 0; id < store.semesterIdLimit(); id++) {
+            buckets.add(null);
+        }
+        for (int i = 0; i < store.size(); i++) {
+            int id = store.getSemesterId(i);
+            List<Course> bucket = buckets.get(id);
+            if (bucket == null) {
+                bucket = new ArrayList<>(store.semesterCourseCount(id));
+                buckets.set(id, bucket);
             }
+            bucket.add(courses.get(i));
         }
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < buckets.size(); id++) {
+            if (buckets.get(id) != null) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> SemesterTrend.SEMESTER_ORDER.compare(store.semesterName(a), store.semesterName(b)));
+        Map<String, List<Course>> result = new LinkedHashMap<>();
+        for (int id : ids) {
+            result.put(store.semesterName(id), buckets.get(id));
+        }
+        Metrics.record(Metrics.Operation.GROUP_BY_SEMESTER, start);
+        return result;
+    }
 
-        return totalCredits == 0 ? 0 : totalWeightedScore / totalCredits;
+    // 按课程类型分组获取课程
+    public synchronized Map<Course.CourseType, List<Course>> getCoursesByType() {
+        long start = Metrics.start();
+        Map<Course.CourseType, List<Course>> result = new EnumMap<>(Course.CourseType.class);
+        for (int i = 0; i < store.size(); i++) {
+            result.computeIfAbsent(store.getType(i), t -> new ArrayList<>()).add(courses.get(i));
+        }
+        Metrics.record(Metrics.Operation.GROUP_BY_TYPE, start);
+        return result;
     }
 
-    // 计算思政课程均分
-    public double calculatePoliticalAverageScore() {
-        double totalWeightedScore = 0;
-        double totalCredits = 0;
+    // 各学期的学期GPA和累计GPA，课程未变化时返回同一个对象
+    public synchronized SemesterTrend getSemesterTrend() {
+        return semesterAggregates.toTrend(store);
+    }
 
-        for (Course course : courses) {
-            if (course.isSelected() && course.getCourseType() == Course.CourseType.POLITICAL) {
-                totalWeightedScore += course.getScore() * course.getCredit();
-                totalCredits += course.getCredit();
-            }
+    // 返回当前版本的统计结果，随快照一同发布，与课程数量无关
+    public GPASummary summarize() {
+        return snapshot.get().getSummary();
+    }
+
+    // 单次扫描全部课程重新计算统计结果，不使用增量累计值
+    public synchronized GPASummary recomputeSummary() {
+        return scanAggregates().toSummary();
+    }
+
+    // 一致性校验模式：开启后每次修改都会与全量重算结果比对（供测试使用）
+    public synchronized void setConsistencyCheckEnabled(boolean enabled) {
+        this.consistencyCheckEnabled = enabled;
+        if (enabled) {
+            verifyAggregates();
         }
+    }
 
-        return totalCredits == 0 ? 0 : totalWeightedScore / totalCredits;
+    // 校验增量累计值与全量重算是否一致，不一致时抛出IllegalStateException
+    public synchronized void verifyAggregates() {
+        if (!aggregates.matches(scanAggregates())) {
+            throw new IllegalStateException("增量统计与全量重算结果不一致");
+        }
     }
 
-    // 计算素质课程均分
-    public double calculateQualityAverageScore() {
-        double totalWeightedScore = 0;
-        double totalCredits = 0;
+    private GPAAggregates scanAggregates() {
+        long start = Metrics.start();
+        GPAAggregates scanned = new GPAAggregates(gradingScales);
+        store.addTo(scanned);
+        Metrics.record(Metrics.Operation.RECOMPUTE, start);
+        return scanned;
+    }
 
-        for (Course course : courses) {
-            if (course.isSelected() && course.getCourseType() == Course.CourseType.QUALITY) {
-                totalWeightedScore += course.getScore() * course.getCredit();
-                totalCredits += course.getCredit();
-            }
+    private void rebuildAggregates() {
+        long start = Metrics.start();
+        aggregates.clear();
+        store.addTo(aggregates);
+        semesterAggregates.clear();
+        store.addTo(semesterAggregates);
+        Metrics.record(Metrics.Operation.RECOMPUTE, start);
+    }
+
+    private void onAggregatesChanged() {
+        if (consistencyCheckEnabled) {
+            verifyAggregates();
         }
+    }
+
+    // 计算加权平均分
+    public double calculateAverageScore() {
+        return summarize().getAverageScore();
+    }
+
+    // 计算标准五分制GPA
+    public double calculateStandardFiveGPA() {
+        return summarize().getStandardFiveGPA();
+    }
+
+    // 计算标准四分制GPA
+    public double calculateStandardFourGPA() {
+        return summarize().getStandardFourGPA();
+    }
+
+    // 计算北大四分制GPA
+    public double calculatePKUGPA() {
+        return summarize().getPkuGPA();
+    }
+
+    // 计算大工算法GPA
+    public double calculateDGUTGPA() {
+        return summarize().getDgutGPA();
+    }
+
+    // 计算专业课程均分
+    public double calculateMajorAverageScore() {
+        return summarize().getTypeAverageScore(Course.CourseType.MAJOR);
+    }
+
+    // 计算思政课程均分
+    public double calculatePoliticalAverageScore() {
+        return summarize().getTypeAverageScore(Course.CourseType.POLITICAL);
+    }
 
-        return totalCredits == 0 ? 0 : totalWeightedScore / totalCredits;
+    // 计算素质课程均分
+    public double calculateQualityAverageScore() {
+        return summarize().getTypeAverageScore(Course.CourseType.QUALITY);
     }
 
     // 计算通识课程均分
     public double calculateGeneralAverageScore() {
-        double totalWeightedScore = 0;
-        double totalCredits = 0;
+        return summarize().getTypeAverageScore(Course.CourseType.GENERAL);
+    }
 
-        for (Course course : courses) {
-            if (course.isSelected() && course.getCourseType() == Course.CourseType.GENERAL) {
-                totalWeightedScore += course.getScore() * course.getCredit();
-                totalCredits += course.getCredit();
-            }
+    // 同步读取全部课程，完成后发布BULK_LOADED事件；读取失败时抛出IOException，已读取的部分保留
+    public synchronized void load() throws IOException {
+        CourseRepository.Replay replay = beginLoad();
+        try {
+            repository.load(replay);
+        } finally {
+            fire(CourseEvent.bulk(currentIds()));
         }
+    }
 
-        return totalCredits == 0 ? 0 : totalWeightedScore / totalCredits;
+    // 清空当前课程并返回用于逐条回放已保存课程的入口，供后台分批读取时在EDT上调用
+    // 回放的修改不会再写回存储，每条修改都会发布对应的课程变化事件
+    public synchronized CourseRepository.Replay beginLoad() {
+        courses.clear();
+        store.clear();
+        indexById.clear();
+        searchIndex.clear();
+        rebuildAggregates();
+        publish();
+        fire(CourseEvent.bulk(new long[0]));
+        return new LoadReplay();
     }
 
-    private void loadFromExcel() {
-        File file = new File(EXCEL_FILE);
-        if (!file.exists()) {
-            createNewExcelFile();
-            return;
+    private long[] currentIds() {
+        long[] ids = new long[courses.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = courses.get(i).getId();
         }
+        return ids;
+    }
 
-        try (FileInputStream fis = new FileInputStream(file);
-             Workbook workbook = new XSSFWorkbook(fis)) {
-            Sheet sheet = workbook.getSheetAt(0);
-            
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row != null) {
-                    try {
-                        String name = getStringCellValue(row.getCell(0));
-                        double credit = getNumericCellValue(row.getCell(1));
-                        double score = getNumericCellValue(row.getCell(2));
-                        Course.CourseType type = Course.CourseType.valueOf(getStringCellValue(row.getCell(3)));
-                        String semester = getStringCellValue(row.getCell(4));
-                        boolean selected = getBooleanCellValue(row.getCell(5));
-                        
-                        courses.add(new Course(name, credit, score, selected, semester, type));
-                    } catch (Exception e) {
-                        System.err.println("Error reading row " + i + ": " + e.getMessage());
-                    }
-                }
+    private class LoadReplay implements CourseRepository.Replay {
+        @Override
+        public void add(Course course) {
+            course = course.readOnlyCopy();
+            synchronized (GPACalculator.this) {
+                applyAdd(course);
+                publish();
+                fire(CourseEvent.single(CourseEvent.Type.ADDED, course.getId(), courses.size() - 1));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(null, 
-                "无法读取课程数据文件：" + e.getMessage(), 
-                "文件读取错误", 
-                JOptionPane.ERROR_MESSAGE);
         }
-    }
 
-    private String getStringCellValue(Cell cell) {
-        if (cell == null) return "";
-        cell.setCellType(CellType.STRING);
-        return cell.getStringCellValue();
-    }
-
-    private double getNumericCellValue(Cell cell) {
-        if (cell == null) return 0.0;
-        cell.setCellType(CellType.NUMERIC);
-        return cell.getNumericCellValue();
-    }
-
-    private boolean getBooleanCellValue(Cell cell) {
-        if (cell == null) return false;
-        cell.setCellType(CellType.BOOLEAN);
-        return cell.getBooleanCellValue();
-    }
-
-    private void saveToExcel() {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("课程信息");
-            
-            // 创建标题行样式
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            
-            // 创建标题行
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < HEADERS.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(HEADERS[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            
-            // 创建数据行
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setAlignment(HorizontalAlignment.CENTER);
-            
-            for (int i = 0; i < courses.size(); i++) {
-                Row row = sheet.createRow(i + 1);
-                Course course = courses.get(i);
-                
-                Cell nameCell = row.createCell(0);
-                nameCell.setCellValue(course.getName());
-                nameCell.setCellStyle(dataStyle);
-                
-                Cell creditCell = row.createCell(1);
-                creditCell.setCellValue(course.getCredit());
-                creditCell.setCellStyle(dataStyle);
-                
-                Cell scoreCell = row.createCell(2);
-                scoreCell.setCellValue(course.getScore());
-                scoreCell.setCellStyle(dataStyle);
-                
-                Cell typeCell = row.createCell(3);
-                typeCell.setCellValue(course.getCourseType().name());
-                typeCell.setCellStyle(dataStyle);
-                
-                Cell semesterCell = row.createCell(4);
-                semesterCell.setCellValue(course.getSemester());
-                semesterCell.setCellStyle(dataStyle);
-                
-                Cell selectedCell = row.createCell(5);
-                selectedCell.setCellValue(course.isSelected());
-                selectedCell.setCellStyle(dataStyle);
+        @Override
+        public void remove(int index) {
+            synchronized (GPACalculator.this) {
+                if (index < 0 || index >= courses.size()) return;
+                Course removed = applyRemove(index);
+                publish();
+                fire(CourseEvent.single(CourseEvent.Type.REMOVED, removed.getId(), index));
             }
-            
-            // 自动调整列宽
-            for (int i = 0; i < HEADERS.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            // 写入文件
-            try (FileOutputStream fos = new FileOutputStream(EXCEL_FILE)) {
-                workbook.write(fos);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(null, 
-                "无法保存课程数据：" + e.getMessage(), 
-                "保存错误", 
-                JOptionPane.ERROR_MESSAGE);
         }
-    }
 
-    private void createNewExcelFile() {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("课程信息");
-            
-            // 创建标题行样式
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            
-            // 创建标题行
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < HEADERS.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(HEADERS[i]);
-                cell.setCellStyle(headerStyle);
+        @Override
+        public void update(int index, Course course) {
+            course = course.readOnlyCopy();
+            synchronized (GPACalculator.this) {
+                if (index < 0 || index >= courses.size()) return;
+                Course previous = applyUpdate(index, course);
+                publish();
+                fire(CourseEvent.updated(previous.getId(), course.getId(), index));
             }
-            
-            // 自动调整列宽
-            for (int i = 0; i < HEADERS.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            // 写入文件
-            try (FileOutputStream fos = new FileOutputStream(EXCEL_FILE)) {
-                workbook.write(fos);
+        }
+
+        @Override
+        public void toggle(int index) {
+            synchronized (GPACalculator.this) {
+                if (index < 0 || index >= courses.size()) return;
+                Course course = applyToggle(index);
+                publish();
+                fire(CourseEvent.single(CourseEvent.Type.SELECTION_TOGGLED, course.getId(), index));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(null, 
-                "无法创建课程数据文件：" + e.getMessage(), 
-                "文件创建错误", 
-                JOptionPane.ERROR_MESSAGE);
         }
     }
-} 
\ No newline at end of file
+}
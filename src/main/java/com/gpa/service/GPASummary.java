@@ -0,0 +1,62 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.util.Collection;
+import java.util.List;
+
+// 一次扫描得到的成绩统计结果（不可变），界面标签和图表共用同一份
+public final class GPASummary {
+    private final List<GradingScale> scales;
+    private final double averageScore;
+    private final double[] gradePoints;       // 按算法顺序存放的GPA
+    private final double[] typeAverageScores; // 按CourseType序号存放的类型均分
+
+    GPASummary(List<GradingScale> scales, double averageScore, double[] gradePoints, double[] typeAverageScores) {
+        this.scales = scales;
+        this.averageScore = averageScore;
+        this.gradePoints = gradePoints.clone();
+        this.typeAverageScores = typeAverageScores.clone();
+    }
+
+    static GPASummary empty(List<GradingScale> scales) {
+        return new GPASummary(scales, 0, new double[scales.size()], new double[Course.CourseType.values().length]);
+    }
+
+    // 不经过GPACalculator直接统计一组课程，与计算器使用相同的累计方式，不读写任何文件
+    public static GPASummary of(List<GradingScale> scales, Collection<Course> courses) {
+        GPAAggregates aggregates = new GPAAggregates(scales);
+        for (Course course : courses) {
+            aggregates.add(course);
+        }
+        return aggregates.toSummary();
+    }
+
+    public List<GradingScale> getScales() { return scales; }
+
+    public double getAverageScore() { return averageScore; }
+
+    public double getGradePoint(int scaleIndex) { return gradePoints[scaleIndex]; }
+
+    // 按算法标识获取GPA，未配置该算法时返回0
+    public double getGradePoint(String scaleId) {
+        for (int i = 0; i < scales.size(); i++) {
+            if (scales.get(i).getId().equals(scaleId)) {
+                return gradePoints[i];
+            }
+        }
+        return 0;
+    }
+
+    public double getStandardFiveGPA() { return getGradePoint(GradingScales.STANDARD_FIVE); }
+
+    public double getStandardFourGPA() { return getGradePoint(GradingScales.STANDARD_FOUR); }
+
+    public double getPkuGPA() { return getGradePoint(GradingScales.PKU); }
+
+    public double getDgutGPA() { return getGradePoint(GradingScales.DGUT); }
+
+    public double getTypeAverageScore(Course.CourseType type) {
+        return typeAverageScores[type.ordinal()];
+    }
+}
@@ -0,0 +1,128 @@
+package com.gpa.service;
+
+import java.util.Arrays;
+
+// 分数到绩点的换算规则，构造时预先编译成按分数索引的查找表
+// 每个0.1分区间对应一段 绩点 = base + slope * 分数，分档算法slope为0，线性算法base/slope按起点换算
+// 分档或起点不在0.1分网格上（例如59.95）时，所在区间标记为边界区间，落在其中的分数按配置精确计算
+public final class GradingScale {
+    private static final int STEPS_PER_POINT = 10;
+    private static final int TABLE_SIZE = 100 * STEPS_PER_POINT + 1;
+
+    private final String id;
+    private final String name;
+    private final String label;
+    private final boolean showInChart;
+    private final double maxPoint;
+    private final double[] base;
+    private final double[] slope;
+    private final boolean[] boundary; // 区间内含有不在网格上的分档或起点
+    private final double[] thresholds; // 分档算法的配置，线性算法为null
+    private final double[] points;
+    private final double from;         // 线性算法的配置
+    private final double rate;
+
+    private GradingScale(String id, String name, String label, boolean showInChart, double maxPoint,
+                         double[] base, double[] slope, boolean[] boundary,
+                         double[] thresholds, double[] points, double from, double rate) {
+        this.id = id;
+        this.name = name;
+        this.label = label;
+        this.showInChart = showInChart;
+        this.maxPoint = maxPoint;
+        this.base = base;
+        this.slope = slope;
+        this.boundary = boundary;
+        this.thresholds = thresholds;
+        this.points = points;
+        this.from = from;
+        this.rate = rate;
+    }
+
+    // 分档算法：分数不低于thresholds[i]时绩点为points[i]，低于全部档位时为0
+    public static GradingScale steps(String id, String name, String label, boolean showInChart,
+                                     double[] thresholds, double[] points) {
+        if (thresholds.length != points.length) {
+            throw new IllegalArgumentException("算法 " + id + " 的分档与绩点数量不一致");
+        }
+        double[] base = new double[TABLE_SIZE];
+        double max = 0;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double score = (double) i / STEPS_PER_POINT;
+            double bestThreshold = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < thresholds.length; k++) {
+                if (score >= thresholds[k] && thresholds[k] > bestThreshold) {
+                    bestThreshold = thresholds[k];
+                    base[i] = points[k];
+                }
+            }
+            max = Math.max(max, base[i]);
+        }
+        boolean[] boundary = new boolean[TABLE_SIZE];
+        for (double threshold : thresholds) {
+            markBoundary(boundary, threshold);
+        }
+        return new GradingScale(id, name, label, showInChart, max, base, new double[TABLE_SIZE], boundary,
+            thresholds.clone(), points.clone(), 0, 0);
+    }
+
+    // 线性算法：分数不低于from时绩点为 (分数 - from) * rate，否则为0
+    public static GradingScale linear(String id, String name, String label, boolean showInChart,
+                                      double from, double rate) {
+        double[] base = new double[TABLE_SIZE];
+        double[] slope = new double[TABLE_SIZE];
+        int start = Math.min(TABLE_SIZE, Math.max(0, (int) Math.ceil(from * STEPS_PER_POINT)));
+        Arrays.fill(base, start, TABLE_SIZE, -from * rate);
+        Arrays.fill(slope, start, TABLE_SIZE, rate);
+        boolean[] boundary = new boolean[TABLE_SIZE];
+        markBoundary(boundary, from);
+        return new GradingScale(id, name, label, showInChart, Math.max(0, (100 - from) * rate), base, slope, boundary,
+            null, null, from, rate);
+    }
+
+    // 分数换算绩点：一次查表；只有落在边界区间时才按配置精确计算
+    public double gradePoint(double score) {
+        int index = (int) (score * STEPS_PER_POINT + 1e-9);
+        index = Math.min(TABLE_SIZE - 1, Math.max(0, index));
+        if (boundary[index]) {
+            return exactGradePoint(score);
+        }
+        return base[index] + slope[index] * score;
+    }
+
+    // 不查表，直接按分档或线性规则计算
+    private double exactGradePoint(double score) {
+        if (thresholds == null) {
+            return score >= from ? (score - from) * rate : 0;
+        }
+        double point = 0;
+        double bestThreshold = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < thresholds.length; k++) {
+            if (score >= thresholds[k] && thresholds[k] > bestThreshold) {
+                bestThreshold = thresholds[k];
+                point = points[k];
+            }
+        }
+        return point;
+    }
+
+    // 分界值不在0.1分网格上时，标记其所在的区间
+    private static void markBoundary(boolean[] boundary, double value) {
+        double steps = value * STEPS_PER_POINT;
+        if (Math.abs(steps - Math.rint(steps)) <= 1e-9) return;
+        int index = (int) Math.floor(steps);
+        if (index >= 0 && index < TABLE_SIZE) {
+            boundary[index] = true;
+        }
+    }
+
+    public String getId() { return id; }
+
+    public String getName() { return name; }
+
+    public String getLabel() { return label; }
+
+    public boolean isShowInChart() { return showInChart; }
+
+    public double getMaxPoint() { return maxPoint; }
+}
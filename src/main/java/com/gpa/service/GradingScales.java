@@ -0,0 +1,126 @@
+package com.gpa.service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+// GPA算法配置加载：先读取内置定义，再用运行目录下的同名文件覆盖或追加
+public final class GradingScales {
+    public static final String CONFIG_FILE = "grading-scales.properties";
+
+    public static final String AVERAGE = "AVERAGE";
+    public static final String STANDARD_FIVE = "FIVE";
+    public static final String STANDARD_FOUR = "FOUR";
+    public static final String PKU = "PKU";
+    public static final String DGUT = "DGUT";
+
+    private GradingScales() {
+    }
+
+    // 加载内置算法和运行目录下的自定义算法
+    public static List<GradingScale> load() {
+        return load(new File(CONFIG_FILE));
+    }
+
+    public static List<GradingScale> load(File userConfig) {
+        Properties config = new Properties();
+        try (InputStream in = GradingScales.class.getResourceAsStream("/" + CONFIG_FILE)) {
+            if (in == null) {
+                throw new IllegalStateException("缺少内置GPA算法配置：" + CONFIG_FILE);
+            }
+            config.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("无法读取内置GPA算法配置", e);
+        }
+
+        Set<String> ids = new LinkedHashSet<>(splitList(config.getProperty("scales", "")));
+        if (userConfig != null && userConfig.isFile()) {
+            Properties user = new Properties();
+            try (InputStream in = new FileInputStream(userConfig)) {
+                user.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+                ids.addAll(splitList(user.getProperty("scales", "")));
+                user.remove("scales");
+                for (String key : user.stringPropertyNames()) {
+                    // 自定义文件改变算法类型时，移除内置的另一种定义
+                    if (key.endsWith(".steps")) {
+                        config.remove(key.substring(0, key.length() - 6) + ".linear");
+                    } else if (key.endsWith(".linear")) {
+                        config.remove(key.substring(0, key.length() - 7) + ".steps");
+                    }
+                }
+                config.putAll(user);
+            } catch (IOException e) {
+                System.err.println("Error reading " + userConfig + ": " + e.getMessage());
+            }
+        }
+
+        List<GradingScale> scales = new ArrayList<>();
+        for (String id : ids) {
+            try {
+                scales.add(parse(id, config));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error reading grading scale " + id + ": " + e.getMessage());
+            }
+        }
+        return Collections.unmodifiableList(scales);
+    }
+
+    static GradingScale parse(String id, Properties config) {
+        String name = config.getProperty(id + ".name", id);
+        String label = config.getProperty(id + ".label", name);
+        boolean chart = Boolean.parseBoolean(config.getProperty(id + ".chart", "true"));
+        String steps = config.getProperty(id + ".steps");
+        String linear = config.getProperty(id + ".linear");
+
+        if (steps != null && linear == null) {
+            List<String> entries = splitList(steps);
+            double[] thresholds = new double[entries.size()];
+            double[] points = new double[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                double[] pair = parsePair(entries.get(i));
+                thresholds[i] = pair[0];
+                points[i] = pair[1];
+            }
+            return GradingScale.steps(id, name, label, chart, thresholds, points);
+        }
+        if (linear != null && steps == null) {
+            double[] pair = parsePair(linear.trim());
+            return GradingScale.linear(id, name, label, chart, pair[0], pair[1]);
+        }
+        throw new IllegalArgumentException("需要且只能定义 steps 或 linear 之一");
+    }
+
+    private static double[] parsePair(String entry) {
+        int colon = entry.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("无效的配置项 \"" + entry + "\"");
+        }
+        try {
+            return new double[]{
+                Double.parseDouble(entry.substring(0, colon).trim()),
+                Double.parseDouble(entry.substring(colon + 1).trim())
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的配置项 \"" + entry + "\"");
+        }
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,63 @@
+package com.gpa.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 耗时直方图：按微秒取2的幂分桶，记录时只做原子加法，不加锁
+// 百分位取所在桶的上界，误差不超过一倍，足以观察延迟分布的变化
+public final class LatencyHistogram {
+    private static final int BUCKETS = 40; // 最后一个桶约为2^39微秒（6天），更长的都计入其中
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    // 0微秒和1微秒都归入第0个桶，之后第i个桶为[2^i, 2^(i+1))
+    private static int bucket(long micros) {
+        int bucket = 63 - Long.numberOfLeadingZeros(Math.max(1, micros));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) totalMicros.get() / n;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    // 返回不小于该比例记录耗时的桶上界（微秒），没有记录时为0
+    public long percentileMicros(double fraction) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long target = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(1, target)) {
+                return Math.min(2L << i, Math.max(maxMicros.get(), 1));
+            }
+        }
+        return maxMicros.get();
+    }
+}
@@ -0,0 +1,256 @@
+package com.gpa.service;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 运行指标：各操作的耗时直方图、每次保存写出的字节数和课程数量，记录时不加锁
+// 默认关闭，关闭时start()只读取一个volatile字段并返回0，record()随即返回
+// 系统属性gpa.metrics=true开启记录，gpa.metrics.dumpSeconds=N每N秒输出一次；也可通过JMX随时开关
+public final class Metrics {
+    // 被计时的操作
+    public enum Operation {
+        LOAD("载入课程"),
+        SAVE("保存工作簿"),
+        SUMMARY("发布统计"),
+        RECOMPUTE("全量统计"),
+        GROUP_BY_SEMESTER("按学期分组"),
+        GROUP_BY_TYPE("按类型分组"),
+        TREND("学期趋势"),
+        REFRESH("刷新界面"),
+        FILTER("筛选课程"),
+        CHART("更新图表");
+
+        private final String displayName;
+
+        Operation(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    // 单个操作的统计，供JMX以CompositeData形式展示
+    public static final class OperationStats {
+        private final String name;
+        private final long count;
+        private final double meanMicros;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        @ConstructorProperties({"name", "count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"})
+        public OperationStats(String name, long count, double meanMicros, long p50Micros, long p99Micros, long maxMicros) {
+            this.name = name;
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+
+    public static final String ENABLED_PROPERTY = "gpa.metrics";
+    public static final String DUMP_SECONDS_PROPERTY = "gpa.metrics.dumpSeconds";
+    private static final String OBJECT_NAME = "com.gpa:type=Metrics";
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+    private static final AtomicLong bytesWritten = new AtomicLong();
+    private static final AtomicLong lastSaveBytes = new AtomicLong();
+    private static volatile int lastLoadCourseCount;
+    private static volatile int lastSaveCourseCount;
+    private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+    private static ScheduledExecutorService dumper; // 仅在install()中创建
+
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    // 开始计时，关闭时返回0
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // start为start()的返回值，为0时不记录（计时期间开启的也不记录）
+    public static void record(Operation operation, long start) {
+        if (start != 0) {
+            histograms[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    public static void recordLoad(long start, int courseCount) {
+        if (start != 0) {
+            record(Operation.LOAD, start);
+            lastLoadCourseCount = courseCount;
+        }
+    }
+
+    public static void recordSave(long start, long bytes, int courseCount) {
+        if (start != 0) {
+            record(Operation.SAVE, start);
+            bytesWritten.addAndGet(bytes);
+            lastSaveBytes.set(bytes);
+            lastSaveCourseCount = courseCount;
+        }
+    }
+
+    public static LatencyHistogram histogram(Operation operation) {
+        return histograms[operation.ordinal()];
+    }
+
+    public static List<OperationStats> operations() {
+        List<OperationStats> result = new ArrayList<>();
+        for (Operation operation : OPERATIONS) {
+            LatencyHistogram h = histogram(operation);
+            if (h.getCount() == 0) continue;
+            result.add(new OperationStats(operation.name(), h.getCount(), h.getMeanMicros(),
+                h.percentileMicros(0.50), h.percentileMicros(0.99), h.getMaxMicros()));
+        }
+        return result;
+    }
+
+    // 每个有记录的操作一行，最后一行为保存写出的字节数和课程数量
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Operation operation : OPERATIONS) {
+            LatencyHistogram h = histogram(operation);
+            if (h.getCount() == 0) continue;
+            out.append(String.format(Locale.ROOT, "%s(%s) count=%d mean=%.0fus p50=%dus p99=%dus max=%dus%n",
+                operation.name(), operation.getDisplayName(), h.getCount(), h.getMeanMicros(),
+                h.percentileMicros(0.50), h.percentileMicros(0.99), h.getMaxMicros()));
+        }
+        long saves = histogram(Operation.SAVE).getCount();
+        out.append(String.format(Locale.ROOT, "saves=%d bytesWritten=%d lastSaveBytes=%d lastSaveCourses=%d lastLoadCourses=%d",
+            saves, bytesWritten.get(), lastSaveBytes.get(), lastSaveCourseCount, lastLoadCourseCount));
+        return out.toString();
+    }
+
+    // 在程序入口调用一次：注册JMX接口，并按系统属性启动定期输出
+    public static synchronized void install() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                new StandardMBean(new Bean(), MetricsMXBean.class, true), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // 已注册过
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBean: " + e.getMessage());
+        }
+
+        long seconds = Long.getLong(DUMP_SECONDS_PROPERTY, 0L);
+        if (seconds > 0 && dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleAtFixedRate(() -> {
+                if (enabled) {
+                    System.out.println("[metrics]\n" + dump());
+                }
+            }, seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private static final class Bean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public void setEnabled(boolean value) {
+            enabled = value;
+        }
+
+        @Override
+        public OperationStats[] getOperations() {
+            return operations().toArray(new OperationStats[0]);
+        }
+
+        @Override
+        public long getSaveCount() {
+            return histogram(Operation.SAVE).getCount();
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return bytesWritten.get();
+        }
+
+        @Override
+        public long getLastSaveBytes() {
+            return lastSaveBytes.get();
+        }
+
+        @Override
+        public double getMeanBytesPerSave() {
+            long saves = getSaveCount();
+            return saves == 0 ? 0 : (double) bytesWritten.get() / saves;
+        }
+
+        @Override
+        public int getLastLoadCourseCount() {
+            return lastLoadCourseCount;
+        }
+
+        @Override
+        public int getLastSaveCourseCount() {
+            return lastSaveCourseCount;
+        }
+
+        @Override
+        public String dump() {
+            return Metrics.dump();
+        }
+    }
+}
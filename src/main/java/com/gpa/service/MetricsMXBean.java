@@ -0,0 +1,27 @@
+package com.gpa.service;
+
+// 运行指标的JMX接口，注册名为com.gpa:type=Metrics，可在jconsole等工具中查看
+public interface MetricsMXBean {
+    boolean isEnabled();
+
+    // 关闭后不再记录，已有的统计保留
+    void setEnabled(boolean enabled);
+
+    // 各操作的次数和耗时分布，只包含已有记录的操作
+    Metrics.OperationStats[] getOperations();
+
+    long getSaveCount();
+
+    long getBytesWritten();
+
+    long getLastSaveBytes();
+
+    double getMeanBytesPerSave();
+
+    int getLastLoadCourseCount();
+
+    int getLastSaveCourseCount();
+
+    // 与定期输出相同的文本
+    String dump();
+}
@@ -0,0 +1,83 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 按学期分别累计的GPAAggregates，下标为CourseStore中的学期编号；只在GPACalculator的锁内使用
+// 学期趋势在需要时生成，缓存到下一次修改计入GPA的课程为止
+final class SemesterAggregates {
+    private final List<GradingScale> scales;
+    private final List<GPAAggregates> bySemester = new ArrayList<>();
+    private SemesterTrend trend;
+
+    SemesterAggregates(List<GradingScale> scales) {
+        this.scales = scales;
+    }
+
+    void add(int semesterId, Course course) {
+        if (course.isSelected()) {
+            get(semesterId).add(course);
+            trend = null;
+        }
+    }
+
+    void remove(int semesterId, Course course) {
+        if (course.isSelected()) {
+            get(semesterId).remove(course);
+            trend = null;
+        }
+    }
+
+    // 直接按列数据累加一门计入GPA的课程，供按列扫描使用
+    void add(int semesterId, int typeOrdinal, double credit, double score) {
+        get(semesterId).add(typeOrdinal, credit, score);
+        trend = null;
+    }
+
+    void clear() {
+        for (GPAAggregates aggregates : bySemester) {
+            aggregates.clear();
+        }
+        trend = null;
+    }
+
+    // 只包含有计入GPA学分的学期，按学期先后排序后生成前缀和
+    SemesterTrend toTrend(CourseStore store) {
+        if (trend != null) return trend;
+        long start = Metrics.start();
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < bySemester.size(); id++) {
+            if (bySemester.get(id).totalCredits() > 0) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> SemesterTrend.SEMESTER_ORDER.compare(store.semesterName(a), store.semesterName(b)));
+
+        int n = ids.size();
+        String[] semesters = new String[n];
+        double[] credits = new double[n + 1];
+        double[] scores = new double[n + 1];
+        double[][] points = new double[scales.size()][n + 1];
+        for (int i = 0; i < n; i++) {
+            GPAAggregates aggregates = bySemester.get(ids.get(i));
+            semesters[i] = store.semesterName(ids.get(i));
+            credits[i + 1] = credits[i] + aggregates.totalCredits();
+            scores[i + 1] = scores[i] + aggregates.totalWeightedScore();
+            for (int s = 0; s < points.length; s++) {
+                points[s][i + 1] = points[s][i] + aggregates.totalWeightedPoints(s);
+            }
+        }
+        trend = new SemesterTrend(scales, semesters, credits, scores, points);
+        Metrics.record(Metrics.Operation.TREND, start);
+        return trend;
+    }
+
+    private GPAAggregates get(int semesterId) {
+        while (bySemester.size() <= semesterId) {
+            bySemester.add(new GPAAggregates(scales));
+        }
+        return bySemester.get(semesterId);
+    }
+}
@@ -0,0 +1,132 @@
+package com.gpa.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 按学期先后排列的成绩趋势（不可变），学分和加权和以前缀和保存
+// 任意连续学期区间的GPA、均分都是两次相减，与学期数量无关；单个学期即学期GPA，从第一个学期起即累计GPA
+public final class SemesterTrend {
+    // 无法识别的学期排在最后，彼此按名称排序
+    public static final long UNKNOWN_KEY = Long.MAX_VALUE;
+    public static final Comparator<String> SEMESTER_ORDER =
+        Comparator.comparingLong(SemesterTrend::semesterKey).thenComparing(Comparator.naturalOrder());
+
+    private static final Pattern YEAR = Pattern.compile("(19|20)\\d{2}");
+    private static final Pattern TERM = Pattern.compile("\\d+");
+    private static final int MAX_TERM = 9;
+    private static final Pattern GRADE = Pattern.compile("大([一二三四五])\\s*([上下])?");
+    private static final String GRADE_NUMBERS = "一二三四五";
+
+    private final List<GradingScale> scales;
+    private final List<String> semesters;
+    private final double[] credits; // credits[i]为前i个学期的学分合计，下同
+    private final double[] scores;
+    private final double[][] points; // [算法][学期前缀]
+
+    SemesterTrend(List<GradingScale> scales, String[] semesters, double[] credits, double[] scores, double[][] points) {
+        this.scales = scales;
+        this.semesters = Collections.unmodifiableList(Arrays.asList(semesters));
+        this.credits = credits;
+        this.scores = scores;
+        this.points = points;
+    }
+
+    // 学期名称对应的排序键：学年起始年份*10+学期序号，无法识别时为UNKNOWN_KEY
+    // 支持"2020-2021-1"、"2021-01"、"2020-2021学年第2学期"、"2021-1"、"2021春"/"2021秋"、"大一上"等写法
+    // 春季和夏季学期属于前一年开始的学年，例如"2021春"与"2020-2021-2"相同
+    public static long semesterKey(String semester) {
+        if (semester == null) return UNKNOWN_KEY;
+        Matcher grade = GRADE.matcher(semester);
+        if (grade.find()) {
+            int year = GRADE_NUMBERS.indexOf(grade.group(1).charAt(0)) + 1;
+            int term = grade.group(2) == null ? 0 : ("上".equals(grade.group(2)) ? 1 : 2);
+            return year * 10L + term;
+        }
+
+        Matcher year = YEAR.matcher(semester);
+        if (!year.find()) return UNKNOWN_KEY;
+        int startYear = Integer.parseInt(year.group());
+        int rest = year.end();
+        boolean academicYear = false;
+        if (year.find() && year.start() - rest <= 2) {
+            // 学年写法：起止两个年份
+            rest = year.end();
+            academicYear = true;
+        }
+
+        String tail = semester.substring(rest);
+        Matcher number = TERM.matcher(tail);
+        if (number.find() && number.group().length() <= 2) {
+            int term = Integer.parseInt(number.group());
+            if (term >= 1 && term <= MAX_TERM) {
+                return startYear * 10L + term;
+            }
+        }
+        if (!academicYear) {
+            if (tail.contains("春")) return (startYear - 1) * 10L + 2;
+            if (tail.contains("夏")) return (startYear - 1) * 10L + 3;
+            if (tail.contains("秋")) return startYear * 10L + 1;
+        }
+        if (tail.contains("上")) return startYear * 10L + 1;
+        if (tail.contains("下")) return startYear * 10L + 2;
+        return startYear * 10L;
+    }
+
+    public List<GradingScale> getScales() {
+        return scales;
+    }
+
+    public int size() {
+        return semesters.size();
+    }
+
+    // 按先后排列的学期名称
+    public List<String> getSemesters() {
+        return semesters;
+    }
+
+    // 学期在趋势中的位置，不存在（或没有计入GPA的课程）时返回-1
+    public int indexOf(String semester) {
+        return semesters.indexOf(semester);
+    }
+
+    // 第from到第to个学期（含两端）的计入学分
+    public double getCredits(int from, int to) {
+        checkRange(from, to);
+        return credits[to + 1] - credits[from];
+    }
+
+    // 第from到第to个学期（含两端）的加权平均分
+    public double getAverageScore(int from, int to) {
+        return average(scores, from, to);
+    }
+
+    // 第from到第to个学期（含两端）按第scaleIndex个算法的GPA
+    public double getGradePoint(int scaleIndex, int from, int to) {
+        return average(points[scaleIndex], from, to);
+    }
+
+    public double getTermGradePoint(int scaleIndex, int semesterIndex) {
+        return getGradePoint(scaleIndex, semesterIndex, semesterIndex);
+    }
+
+    // 截至该学期的累计GPA
+    public double getCumulativeGradePoint(int scaleIndex, int semesterIndex) {
+        return getGradePoint(scaleIndex, 0, semesterIndex);
+    }
+
+    private double average(double[] prefix, int from, int to) {
+        double credit = getCredits(from, to);
+        return credit > 0 ? (prefix[to + 1] - prefix[from]) / credit : 0;
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to >= semesters.size() || from > to) {
+            throw new IndexOutOfBoundsException("semester range " + from + ".." + to + " out of range");
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// 基于嵌入式数据库（H2文件库）的课程存储：每次修改只在事务中更新对应的一行
+public class SqlCourseRepository implements CourseRepository {
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS course ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "name VARCHAR NOT NULL, "
+            + "credit DOUBLE PRECISION NOT NULL, "
+            + "score DOUBLE PRECISION NOT NULL, "
+            + "course_type VARCHAR(16) NOT NULL, "
+            + "semester VARCHAR NOT NULL, "
+            + "selected BOOLEAN NOT NULL, "
+            + "major BOOLEAN DEFAULT FALSE NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_course_semester ON course(semester)",
+        "CREATE INDEX IF NOT EXISTS idx_course_type ON course(course_type)"
+    };
+
+    private final String url;
+    private final File seedWorkbook;
+    // 课程编号到行主键的映射；按编号而不是列表位置对应，某次写入失败后其余课程仍能找到各自的行
+    private final Map<Long, Long> rowIds = new HashMap<>();
+    private Connection connection;
+    private volatile Consumer<Exception> errorHandler = Throwable::printStackTrace;
+
+    // url为JDBC连接串；seedWorkbook不为空时，首次使用空库会从该工作簿导入课程
+    public SqlCourseRepository(String url, File seedWorkbook) {
+        this.url = url;
+        this.seedWorkbook = seedWorkbook;
+    }
+
+    // 在database所在位置创建H2文件库，例如score对应score.mv.db
+    public static SqlCourseRepository embedded(File database, File seedWorkbook) {
+        return new SqlCourseRepository("jdbc:h2:file:" + database.getAbsolutePath(), seedWorkbook);
+    }
+
+    @Override
+    public void setErrorHandler(Consumer<Exception> handler) {
+        this.errorHandler = handler;
+    }
+
+    @Override
+    public synchronized void load(Replay replay) throws IOException {
+        try {
+            if (connection == null) {
+                connection = DriverManager.getConnection(url);
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : SCHEMA) {
+                        statement.execute(sql);
+                    }
+                }
+                connection.setAutoCommit(false);
+            }
+
+            if (isEmpty() && seedWorkbook != null && seedWorkbook.isFile()) {
+                importWorkbook();
+            }
+            query(replay);
+        } catch (SQLException e) {
+            throw new IOException("无法读取课程数据库：" + e.getMessage(), e);
+        }
+    }
+
+    private boolean isEmpty() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM course")) {
+            rs.next();
+            return rs.getLong(1) == 0;
+        }
+    }
+
+    // 按主键顺序逐行回放
+    private void query(Replay replay) throws SQLException {
+        rowIds.clear();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT id, name, credit, score, course_type, semester, selected, major FROM course ORDER BY id")) {
+            while (rs.next()) {
+                try {
+                    Course course = new Course(rs.getString(2), rs.getDouble(3), rs.getDouble(4), rs.getBoolean(7),
+                        rs.getString(6), Course.CourseType.valueOf(rs.getString(5)));
+                    course.setMajorCourse(rs.getBoolean(8));
+                    rowIds.put(course.getId(), rs.getLong(1));
+                    replay.add(course);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error reading course row " + rs.getLong(1) + ": " + e.getMessage());
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    // 整个工作簿在一个事务中导入
+    private void importWorkbook() throws SQLException, IOException {
+        List<Course> courses = ExcelCourseReader.readAll(seedWorkbook);
+        try (PreparedStatement insert = prepareInsert()) {
+            for (Course course : courses) {
+                bindCourse(insert, course);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void added(Course course) throws IOException {
+        requireOpen();
+        try {
+            insert(course);
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    private void insert(Course course) throws SQLException {
+        try (PreparedStatement insert = prepareInsert()) {
+            bindCourse(insert, course);
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                long id = keys.getLong(1);
+                connection.commit();
+                rowIds.put(course.getId(), id);
+            }
+        }
+    }
+
+    // 整批在一个事务中以JDBC批处理插入，按插入顺序取回各行主键
+    @Override
+    public synchronized void addedAll(List<Course> courses) throws IOException {
+        requireOpen();
+        if (courses.isEmpty()) return;
+        List<Long> ids = new ArrayList<>(courses.size());
+        try (PreparedStatement insert = prepareInsert()) {
+            for (Course course : courses) {
+                bindCourse(insert, course);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                while (keys.next()) {
+                    ids.add(keys.getLong(1));
+                }
+            }
+            if (ids.size() != courses.size()) {
+                throw new SQLException("批量插入返回了" + ids.size() + "个主键，应为" + courses.size() + "个");
+            }
+            connection.commit();
+            for (int i = 0; i < courses.size(); i++) {
+                rowIds.put(courses.get(i).getId(), ids.get(i));
+            }
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    // 之前插入失败的课程在数据库中没有对应的行，删除时无需处理
+    @Override
+    public synchronized void removed(int index, Course course) throws IOException {
+        requireOpen();
+        Long rowId = rowIds.get(course.getId());
+        if (rowId == null) return;
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM course WHERE id = ?")) {
+            delete.setLong(1, rowId);
+            delete.executeUpdate();
+            connection.commit();
+            rowIds.remove(course.getId());
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    // 修改后的课程可能换了编号；之前插入失败的课程此时补插一行
+    @Override
+    public synchronized void updated(int index, Course previous, Course current) throws IOException {
+        requireOpen();
+        Long rowId = rowIds.get(previous.getId());
+        try {
+            if (rowId == null) {
+                insert(current);
+                return;
+            }
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE course SET name = ?, credit = ?, score = ?, course_type = ?, semester = ?, "
+                        + "selected = ?, major = ? WHERE id = ?")) {
+                bindCourse(update, current);
+                update.setLong(8, rowId);
+                update.executeUpdate();
+                connection.commit();
+            }
+            rowIds.remove(previous.getId());
+            rowIds.put(current.getId(), rowId);
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    @Override
+    public synchronized void toggled(int index, Course course) throws IOException {
+        requireOpen();
+        Long rowId = rowIds.get(course.getId());
+        try {
+            if (rowId == null) {
+                insert(course);
+                return;
+            }
+            try (PreparedStatement update = connection.prepareStatement("UPDATE course SET selected = ? WHERE id = ?")) {
+                update.setBoolean(1, course.isSelected());
+                update.setLong(2, rowId);
+                update.executeUpdate();
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    private PreparedStatement prepareInsert() throws SQLException {
+        return connection.prepareStatement(
+            "INSERT INTO course (name, credit, score, course_type, semester, selected, major) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)",
+            Statement.RETURN_GENERATED_KEYS);
+    }
+
+    private static void bindCourse(PreparedStatement statement, Course course) throws SQLException {
+        statement.setString(1, course.getName());
+        statement.setDouble(2, course.getCredit());
+        statement.setDouble(3, course.getScore());
+        statement.setString(4, course.getCourseType().name());
+        statement.setString(5, course.getSemester());
+        statement.setBoolean(6, course.isSelected());
+        statement.setBoolean(7, course.isMajorCourse());
+    }
+
+    // load()之前或close()之后没有连接，修改只能报错而不能静默丢弃
+    private void requireOpen() throws IOException {
+        if (connection == null) {
+            throw new IOException("课程数据库未打开或已关闭：" + url);
+        }
+    }
+
+    private IOException rollback(SQLException e) {
+        try {
+            connection.rollback();
+        } catch (SQLException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+        return new IOException("无法保存课程数据：" + e.getMessage(), e);
+    }
+
+    // 每次修改都已提交，无需额外写出
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            errorHandler.accept(e);
+        } finally {
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.gpa.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// 多名学生的课程集合：每名学生一个独立的GPACalculator（各自的统计缓存、锁和存储位置），按学号保存在ConcurrentHashMap中
+// 不同学生的读写互不阻塞；长时间未使用的学生可从内存中移除，下次使用时重新读取
+public final class StudentRegistry implements Closeable {
+    private static final Pattern STUDENT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final int SAVE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    // 按学号创建该学生的存储；saveExecutor为全部学生共用的后台保存线程池，存储不应自行关闭它
+    public interface RepositoryFactory {
+        CourseRepository create(String studentId, ScheduledExecutorService saveExecutor);
+    }
+
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final List<GradingScale> scales;
+    private final RepositoryFactory repositoryFactory;
+    private final ScheduledExecutorService saveExecutor; // 后台保存线程数固定，不随学生数量增长
+    private ScheduledExecutorService evictor;
+
+    // repositoryFactory只在学生首次使用（或被移除后再次使用）时调用
+    public StudentRegistry(List<GradingScale> scales, RepositoryFactory repositoryFactory) {
+        this.scales = scales;
+        this.repositoryFactory = repositoryFactory;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.saveExecutor = Executors.newScheduledThreadPool(SAVE_THREADS, r -> {
+            Thread thread = new Thread(r, "score-saver-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 每名学生一个子目录，各自保存score.xlsx及其日志和快照
+    public static RepositoryFactory excelDirectory(File baseDirectory) {
+        return (studentId, saveExecutor) -> {
+            File directory = new File(baseDirectory, studentId);
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                System.err.println("Failed to create student directory: " + directory);
+            }
+            return new ExcelCourseRepository(new File(directory, "score.xlsx"), saveExecutor);
+        };
+    }
+
+    // 学号只允许字母、数字、下划线和连字符，避免被用作路径时越出存储目录
+    public static boolean isValidStudentId(String studentId) {
+        return studentId != null && STUDENT_ID.matcher(studentId).matches();
+    }
+
+    // 使用期间该学生不会被移除；用完必须关闭，通常写在try-with-resources中
+    public final class Lease implements Closeable {
+        private final Tenant tenant;
+        private boolean released;
+
+        private Lease(Tenant tenant) {
+            this.tenant = tenant;
+        }
+
+        public GPACalculator calculator() {
+            return tenant.calculator;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                tenant.release();
+            }
+        }
+    }
+
+    // 获取学生的计算器，首次使用时读取其已保存的课程；读取失败时抛出IOException
+    public Lease open(String studentId) throws IOException {
+        if (!isValidStudentId(studentId)) {
+            throw new IllegalArgumentException("无效的学号：" + studentId);
+        }
+        while (true) {
+            // 创建Tenant只是构造对象，读取文件放在Tenant自己的锁内，不占用ConcurrentHashMap的桶锁
+            Tenant tenant = tenants.computeIfAbsent(studentId,
+                id -> new Tenant(new GPACalculator(scales, repositoryFactory.create(id, saveExecutor))));
+            if (!tenant.acquire()) {
+                // 正在被移除：等它写完并关闭存储后重新创建，避免两个存储同时读写同一组文件
+                tenant.awaitClosed();
+                continue;
+            }
+            try {
+                tenant.ensureLoaded();
+                return new Lease(tenant);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to load student " + studentId + ": " + e.getMessage());
+                tenant.release();
+                // 没有其他使用者时移除，下次使用重新创建；否则保留，由其他使用者重试读取
+                evict(studentId, tenant, false);
+                throw e;
+            }
+        }
+    }
+
+    public int size() {
+        return tenants.size();
+    }
+
+    public boolean isResident(String studentId) {
+        return tenants.containsKey(studentId);
+    }
+
+    // 移除超过idleMillis未使用且当前没有租约的学生，移除前写出未保存的修改；返回移除的数量
+    public int evictIdle(long idleMillis) {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        int evicted = 0;
+        for (Map.Entry<String, Tenant> entry : tenants.entrySet()) {
+            Tenant tenant = entry.getValue();
+            if (tenant.lastUsed - cutoff < 0 && evict(entry.getKey(), tenant, false)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    // 在后台按固定间隔清理空闲学生，重复调用会替换之前的设置
+    public synchronized void startIdleEviction(long idleMillis, long intervalMillis) {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "student-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> {
+            int evicted = evictIdle(idleMillis);
+            if (evicted > 0) {
+                System.out.println("Evicted " + evicted + " idle students, " + size() + " remain");
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // 停止后台清理并关闭全部学生的存储；仍持有租约的学生也会被关闭
+    // 各学生的剩余修改写完后才停止共用的保存线程
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (evictor != null) {
+                evictor.shutdownNow();
+                evictor = null;
+            }
+        }
+        for (Map.Entry<String, Tenant> entry : tenants.entrySet()) {
+            evict(entry.getKey(), entry.getValue(), true);
+        }
+        saveExecutor.shutdown();
+    }
+
+    // 先关闭存储再从表中移除，此期间访问该学生的请求等待关闭完成
+    private boolean evict(String studentId, Tenant tenant, boolean force) {
+        if (!tenant.retire(force)) {
+            return false;
+        }
+        try {
+            tenant.calculator.close();
+        } finally {
+            tenants.remove(studentId, tenant);
+            tenant.markClosed();
+        }
+        return true;
+    }
+
+    // 一名学生的计算器及其使用状态；租约计数和退役标记在Tenant的锁内修改，读取课程使用单独的锁
+    private static final class Tenant {
+        final GPACalculator calculator;
+        volatile long lastUsed = System.nanoTime();
+        private final Object loadLock = new Object();
+        private int leases;
+        private boolean retired;
+        private boolean closed;
+        private boolean loaded; // 由loadLock保护
+
+        Tenant(GPACalculator calculator) {
+            this.calculator = calculator;
+        }
+
+        synchronized boolean acquire() {
+            if (retired) return false;
+            leases++;
+            lastUsed = System.nanoTime();
+            return true;
+        }
+
+        synchronized void release() {
+            leases--;
+            lastUsed = System.nanoTime();
+        }
+
+        // 同一学生的并发首次访问只读取一次；读取期间不阻塞后台清理检查租约
+        void ensureLoaded() throws IOException {
+            synchronized (loadLock) {
+                if (!loaded) {
+                    calculator.load();
+                    loaded = true;
+                }
+            }
+        }
+
+        synchronized void markClosed() {
+            closed = true;
+            notifyAll();
+        }
+
+        synchronized void awaitClosed() {
+            boolean interrupted = false;
+            while (!closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // 没有租约（或force）时标记为退役，之后acquire都会失败
+        synchronized boolean retire(boolean force) {
+            if (retired || (leases > 0 && !force)) return false;
+            retired = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.gpa.service;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// 延迟合并写入：短时间内的多次修改只在后台线程保存一次，最长延迟有上限
+// 可以独占一个后台线程，也可以与其他实例共用外部的线程池；同一实例的保存任务不会并发执行
+public class WriteBehindSaver implements Closeable {
+    public interface SaveTask {
+        void save() throws Exception;
+    }
+
+    private final SaveTask task;
+    private final long delayNanos;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Object saveLock = new Object(); // 共用线程池时保证同一实例的保存依次执行
+    private volatile Consumer<Exception> errorHandler = Throwable::printStackTrace;
+
+    private boolean scheduled;
+    private boolean closed;
+    private boolean stopped; // close()已写完剩余修改
+    private long firstRequest;
+    private long lastRequest;
+
+    // 独占一个名为score-saver的后台线程
+    public WriteBehindSaver(SaveTask task, long delayMillis, long maxDelayMillis) {
+        this(task, delayMillis, maxDelayMillis, null);
+    }
+
+    // executor为null时独占一个后台线程；否则使用外部线程池，close()时不关闭它
+    public WriteBehindSaver(SaveTask task, long delayMillis, long maxDelayMillis, ScheduledExecutorService executor) {
+        this.task = task;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, maxDelayMillis));
+        this.ownsExecutor = executor == null;
+        this.executor = executor != null ? executor : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "score-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 保存失败时的回调，在保存线程上调用，回调方不应阻塞
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    // 标记有待保存的修改，不阻塞调用线程
+    public synchronized void requestSave() {
+        if (closed) return;
+        long now = System.nanoTime();
+        lastRequest = now;
+        if (!scheduled) {
+            scheduled = true;
+            firstRequest = now;
+            executor.schedule(this::saveIfDue, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void saveIfDue() {
+        synchronized (this) {
+            if (!scheduled) return;
+            // 静默期内又有修改则顺延，但不超过首次修改后的最长延迟
+            long due = Math.min(lastRequest + delayNanos, firstRequest + maxDelayNanos);
+            long wait = due - System.nanoTime();
+            if (wait > 0 && !closed) {
+                executor.schedule(this::saveIfDue, wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+            scheduled = false;
+        }
+        runTask();
+    }
+
+    private void runTask() {
+        try {
+            synchronized (saveLock) {
+                task.save();
+            }
+        } catch (Exception e) {
+            Consumer<Exception> handler = errorHandler;
+            if (handler != null) {
+                handler.accept(e);
+            }
+        }
+    }
+
+    // 立即执行尚未完成的保存并等待其结束
+    public void flush() {
+        Future<?> future;
+        synchronized (this) {
+            if (stopped || executor.isShutdown()) return;
+            future = executor.submit(() -> {
+                boolean pending;
+                synchronized (this) {
+                    pending = scheduled;
+                    scheduled = false;
+                }
+                if (pending) {
+                    runTask();
+                }
+            });
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Consumer<Exception> handler = errorHandler;
+            if (handler != null) {
+                handler.accept(e);
+            }
+        }
+    }
+
+    // 保存剩余修改后停止独占的后台线程，可重复调用
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        flush();
+        synchronized (this) {
+            stopped = true;
+        }
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+}
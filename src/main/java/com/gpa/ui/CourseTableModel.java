@@ -0,0 +1,151 @@
+package com.gpa.ui;
+
+import com.gpa.model.Course;
+import com.gpa.service.CourseFilter;
+import com.gpa.service.CourseSearchIndex;
+import com.gpa.service.CourseStore;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+// 课程表格模型：不复制课程数据，单元格按需从列存储读取
+// rows保存当前筛选结果对应的课程下标（升序），课程增删改时只通知受影响的行
+class CourseTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMN_NAMES = {"序号", "课程名称", "学分", "成绩", "课程类型", "学期", "是否计入GPA"};
+
+    private final CourseStore store;
+    private final CourseSearchIndex searchIndex;
+    private int[] rows = new int[64];
+    private int rowCount;
+
+    private CourseFilter filter;         // 当前筛选条件
+
+    CourseTableModel(CourseStore store, CourseSearchIndex searchIndex) {
+        this.store = store;
+        this.searchIndex = searchIndex;
+        this.filter = CourseFilter.all(store, searchIndex);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        if (columnIndex == 2 || columnIndex == 3) {
+            return Double.class;
+        }
+        return Object.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int index = rows[row];
+        switch (column) {
+            case 0: return row + 1;
+            case 1: return store.getName(index);
+            case 2: return store.getCredit(index);
+            case 3: return store.getScore(index);
+            case 4: return store.getType(index).getDisplayName();
+            case 5: return store.getSemester(index);
+            case 6: return store.isSelected(index) ? "是" : "否";
+            default: return null;
+        }
+    }
+
+    // 表格行对应的课程编号
+    long getCourseId(int row) {
+        return store.getId(rows[row]);
+    }
+
+    // 更新筛选条件并重新计算可见行
+    void setFilter(String semester, Course.CourseType type, String searchText) {
+        filter = new CourseFilter(store, searchIndex, semester, type, searchText);
+        int matched = filter.select(rows);
+        if (matched > rows.length) {
+            rows = new int[Math.max(matched, rows.length * 2)];
+            matched = filter.select(rows);
+        }
+        rowCount = matched;
+        fireTableDataChanged();
+    }
+
+    // 清空可见行，等待下一次setFilter重新计算
+    void clear() {
+        if (rowCount == 0) return;
+        rowCount = 0;
+        fireTableDataChanged();
+    }
+
+    // 课程已追加到列存储末尾
+    void courseAdded(int index) {
+        if (!filter.matches(index)) return;
+        insertRow(rowCount, index);
+    }
+
+    // 下标为index的课程已删除，其后的课程下标前移一位
+    void courseRemoved(int index) {
+        int row = Arrays.binarySearch(rows, 0, rowCount, index);
+        int from = row >= 0 ? row + 1 : -row - 1;
+        for (int k = from; k < rowCount; k++) {
+            rows[k]--;
+        }
+        if (row >= 0) {
+            System.arraycopy(rows, row + 1, rows, row, rowCount - row - 1);
+            rowCount--;
+            fireTableRowsDeleted(row, row);
+            if (row < rowCount) {
+                // 后续行的序号随之变化
+                fireTableRowsUpdated(row, rowCount - 1);
+            }
+        }
+    }
+
+    // 下标为index的课程内容已修改，可能因此进入或离开筛选结果
+    void courseUpdated(int index) {
+        int row = Arrays.binarySearch(rows, 0, rowCount, index);
+        boolean visible = filter.matches(index);
+        if (row >= 0 && visible) {
+            fireTableRowsUpdated(row, row);
+        } else if (row >= 0) {
+            System.arraycopy(rows, row + 1, rows, row, rowCount - row - 1);
+            rowCount--;
+            fireTableRowsDeleted(row, row);
+            if (row < rowCount) {
+                fireTableRowsUpdated(row, rowCount - 1);
+            }
+        } else if (visible) {
+            insertRow(-row - 1, index);
+        }
+    }
+
+    private void insertRow(int row, int index) {
+        if (rowCount == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length * 2);
+        }
+        System.arraycopy(rows, row, rows, row + 1, rowCount - row);
+        rows[row] = index;
+        rowCount++;
+        fireTableRowsInserted(row, row);
+        if (row + 1 < rowCount) {
+            fireTableRowsUpdated(row + 1, rowCount - 1);
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package com.gpa.ui;
 
 import com.gpa.model.Course;
+import com.gpa.service.CourseEvent;
+import com.gpa.service.CourseImporter;
+import com.gpa.service.CourseRepository;
+import com.gpa.service.CourseStore;
 import com.gpa.service.GPACalculator;
+import com.gpa.service.GPASummary;
+import com.gpa.service.GradingScale;
+import com.gpa.service.Metrics;
+import com.gpa.service.SemesterTrend;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -9,19 +17,23 @@ import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.chart.renderer.category.BarRenderer;
+import org.jfree.chart.renderer.category.LineAndShapeRenderer;
 import org.jfree.chart.renderer.category.StandardBarPainter;
 import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.CategoryLabelPositions;
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.axis.NumberTickUnit;
 import org.jfree.chart.block.BlockBorder;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
 import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.FlowLayout;
@@ -34,38 +46,65 @@ import javax.swing.BorderFactory;
 import javax.swing.border.TitledBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.Collections;
-import java.util.stream.Collectors;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 public class MainFrame extends JFrame {
     private final GPACalculator calculator;
     private final JTable courseTable;
-    private final DefaultTableModel tableModel;
+    private final CourseTableModel tableModel;
     private final JPanel chartPanel;
-    private final JLabel averageScoreLabel;
-    private final JLabel standardFiveGPALabel;
-    private final JLabel standardFourGPALabel;
-    private final JLabel pkuGPALabel;
-    private final JLabel dgutGPALabel;
+    private final DefaultCategoryDataset chartDataset = new DefaultCategoryDataset(); // 图表数据，随统计结果原地更新
+    private static final String CHART_SERIES = "GPA值";
+    private GPASummary shownSummary; // 界面上当前显示的统计结果
+    private final DefaultCategoryDataset trendDataset = new DefaultCategoryDataset(); // 学期趋势图数据，按算法分行、按学期分列
+    private JComboBox<String> trendMode; // 学期GPA或累计GPA
+    private JButton addButton;
+    private JButton importButton;
+    private JProgressBar loadProgress;
+    private boolean loading; // 读取课程期间禁止修改，避免与回放的修改交错
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler();
+    private int pendingRowChanges; // 本轮刷新前已直接通知表格模型的行变化数
+    private static final int MAX_ROW_CHANGES_PER_REFRESH = 32;
+    private final List<JLabel> gradeLabels = new ArrayList<>(); // 与计算器中的GPA算法一一对应
     private final JLabel majorAverageLabel;
     private final JLabel politicalAverageLabel;
     private final JLabel qualityAverageLabel;
     private final JLabel generalAverageLabel;
     private JTextField searchField;
+    private Timer searchDebounce;
+    private static final int SEARCH_DEBOUNCE_MILLIS = 150; // 搜索框输入的防抖间隔
     private JComboBox<String> semesterFilter;
     private JComboBox<Course.CourseType> typeFilter;
-    private final java.util.List<String> semesters = new ArrayList<>();
-
-    public MainFrame() {
-        calculator = new GPACalculator();
+    private final java.util.List<String> semesters = new ArrayList<>(); // 下拉框中当前的学期
+    private boolean updatingSemesterList; // 重建学期下拉框期间忽略其选择事件
+
+    // calculator由调用方在EDT之外创建：读取GPA算法配置和打开存储都涉及文件
+    public MainFrame(GPACalculator calculator) {
+        this.calculator = calculator;
+        // 后台保存失败时回到EDT提示，不阻塞保存线程
+        calculator.setSaveErrorHandler(ex -> SwingUtilities.invokeLater(() ->
+            JOptionPane.showMessageDialog(this,
+                "无法保存课程数据：" + ex.getMessage(),
+                "保存错误",
+                JOptionPane.ERROR_MESSAGE)));
 
         // 设置窗口
         setTitle("大学成绩管理系统");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // 退出前写出尚未保存的修改
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                calculator.close();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(calculator::close, "score-saver-flush"));
         setSize(1200, 800);
         setLocationRelativeTo(null);
 
@@ -91,22 +130,8 @@ public class MainFrame extends JFrame {
             new Font("Microsoft YaHei", Font.BOLD, 14)
         ));
 
-        // 创建表格
-        String[] columnNames = {"序号", "课程名称", "学分", "成绩", "课程类型", "学期", "是否计入GPA"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-            
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 2 || columnIndex == 3) {
-                    return Double.class;
-                }
-                return Object.class;
-            }
-        };
+        // 创建表格（模型直接读取课程列存储）
+        tableModel = new CourseTableModel(calculator.getCourseStore(), calculator.getSearchIndex());
         
         courseTable = new JTable(tableModel);
         courseTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -157,7 +182,7 @@ public class MainFrame extends JFrame {
         courseTable.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseReleased(MouseEvent e) {
-                if (e.isPopupTrigger()) {
+                if (e.isPopupTrigger() && !loading) {
                     int row = courseTable.rowAtPoint(e.getPoint());
                     if (row >= 0) {
                         courseTable.setRowSelectionInterval(row, row);
@@ -176,12 +201,26 @@ public class MainFrame extends JFrame {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
         buttonPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 5, 0));
         
-        JButton addButton = new JButton("添加课程");
+        addButton = new JButton("添加课程");
         addButton.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
         addButton.setPreferredSize(new Dimension(100, 30));
         addButton.addActionListener(this::showAddCourseDialog);
         buttonPanel.add(addButton);
 
+        importButton = new JButton("导入课程");
+        importButton.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
+        importButton.setPreferredSize(new Dimension(100, 30));
+        importButton.addActionListener(e -> importCourses());
+        buttonPanel.add(importButton);
+
+        // 读取进度，读取完成后隐藏
+        loadProgress = new JProgressBar();
+        loadProgress.setIndeterminate(true);
+        loadProgress.setStringPainted(true);
+        loadProgress.setString("正在读取课程数据…");
+        loadProgress.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
+        buttonPanel.add(loadProgress);
+
         leftPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         // 创建右侧面板（GPA信息和均分信息）
@@ -189,7 +228,8 @@ public class MainFrame extends JFrame {
         rightPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
         
         // 创建GPA信息面板
-        JPanel gpaInfoPanel = new JPanel(new GridLayout(5, 1, 5, 5));
+        List<GradingScale> scales = calculator.getGradingScales();
+        JPanel gpaInfoPanel = new JPanel(new GridLayout(Math.max(scales.size(), 1), 1, 5, 5));
         gpaInfoPanel.setBorder(BorderFactory.createTitledBorder(
             BorderFactory.createEtchedBorder(),
             "GPA信息",
@@ -198,17 +238,12 @@ public class MainFrame extends JFrame {
             new Font("Microsoft YaHei", Font.BOLD, 14)
         ));
 
-        averageScoreLabel = new JLabel("总平均分：0.00");
-        standardFiveGPALabel = new JLabel("标准五分制GPA：0.00");
-        standardFourGPALabel = new JLabel("标准四分制GPA：0.00");
-        pkuGPALabel = new JLabel("北大算法GPA：0.00");
-        dgutGPALabel = new JLabel("大工算法GPA：0.00");
-
-        gpaInfoPanel.add(averageScoreLabel);
-        gpaInfoPanel.add(standardFiveGPALabel);
-        gpaInfoPanel.add(standardFourGPALabel);
-        gpaInfoPanel.add(pkuGPALabel);
-        gpaInfoPanel.add(dgutGPALabel);
+        // 按配置的GPA算法生成标签，新增算法无需修改界面
+        for (GradingScale scale : scales) {
+            JLabel label = new JLabel(scale.getLabel() + "：0.00");
+            gradeLabels.add(label);
+            gpaInfoPanel.add(label);
+        }
 
         // 创建均分统计面板
         JPanel averagePanel = new JPanel(new GridLayout(4, 1, 5, 5));
@@ -246,6 +281,11 @@ public class MainFrame extends JFrame {
             TitledBorder.TOP,
             new Font("Microsoft YaHei", Font.BOLD, 14)
         ));
+        JTabbedPane chartTabs = new JTabbedPane();
+        chartTabs.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
+        chartTabs.addTab("各算法GPA", createChart());
+        chartTabs.addTab("学期趋势", createTrendPanel());
+        chartPanel.add(chartTabs);
         rightPanel.add(chartPanel, BorderLayout.CENTER);
 
         // 添加左右面板到主面板
@@ -255,8 +295,19 @@ public class MainFrame extends JFrame {
         // 添加主面板到窗口
         add(mainPanel);
 
-        // 初始化数据
+        // 各区域的刷新方式，由调度器在每轮EDT事件处理后统一执行
+        refreshScheduler.register(RefreshScheduler.Region.SEMESTERS, this::updateSemesterList);
+        refreshScheduler.register(RefreshScheduler.Region.TABLE, this::filterCourses);
+        refreshScheduler.register(RefreshScheduler.Region.STATS, this::updateStatistics);
+        refreshScheduler.register(RefreshScheduler.Region.CHART, () -> updateChart(calculator.summarize()));
+        refreshScheduler.register(RefreshScheduler.Region.TREND, this::updateTrendChart);
+
+        // 初始化数据，之后由课程变化事件驱动局部更新
         refreshData();
+        calculator.addCourseListener(this::onCourseChanged);
+
+        // 窗口先显示，课程数据在后台读取
+        startLoading();
     }
 
     private JPanel createSearchPanel() {
@@ -276,24 +327,32 @@ public class MainFrame extends JFrame {
         // 搜索框
         searchField = new JTextField(15);
         searchField.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
+        // 输入停顿后再筛选，连续输入时只执行最后一次
+        searchDebounce = new Timer(SEARCH_DEBOUNCE_MILLIS,
+            e -> refreshScheduler.markDirty(RefreshScheduler.Region.TABLE));
+        searchDebounce.setRepeats(false);
         searchField.getDocument().addDocumentListener(new DocumentListener() {
-            public void insertUpdate(DocumentEvent e) { filterCourses(); }
-            public void removeUpdate(DocumentEvent e) { filterCourses(); }
-            public void changedUpdate(DocumentEvent e) { filterCourses(); }
+            public void insertUpdate(DocumentEvent e) { searchDebounce.restart(); }
+            public void removeUpdate(DocumentEvent e) { searchDebounce.restart(); }
+            public void changedUpdate(DocumentEvent e) { searchDebounce.restart(); }
         });
 
         // 学期筛选
         semesterFilter = new JComboBox<>();
         semesterFilter.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
         semesterFilter.addItem("全部学期");
-        semesterFilter.addActionListener(e -> filterCourses());
+        semesterFilter.addActionListener(e -> {
+            if (!updatingSemesterList) {
+                refreshScheduler.markDirty(RefreshScheduler.Region.TABLE);
+            }
+        });
 
         // 课程类型筛选
         typeFilter = new JComboBox<>(Course.CourseType.values());
         typeFilter.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
         typeFilter.insertItemAt(null, 0);
         typeFilter.setSelectedIndex(0);
-        typeFilter.addActionListener(e -> filterCourses());
+        typeFilter.addActionListener(e -> refreshScheduler.markDirty(RefreshScheduler.Region.TABLE));
 
         // 添加组件
         gbc.gridx = 0; gbc.gridy = 0; gbc.weightx = 0.2;
@@ -315,47 +374,54 @@ public class MainFrame extends JFrame {
     }
 
     private void filterCourses() {
-        String searchText = searchField.getText().toLowerCase();
+        long start = Metrics.start();
+        searchDebounce.stop(); // 已按最新输入筛选，取消尚未触发的防抖
         String selectedSemester = (String) semesterFilter.getSelectedItem();
         Course.CourseType selectedType = (Course.CourseType) typeFilter.getSelectedItem();
-
-        tableModel.setRowCount(0);
-        int displayIndex = 0;
-        for (int i = 0; i < calculator.getCourses().size(); i++) {
-            Course course = calculator.getCourses().get(i);
-            course.setOriginalIndex(i); // 设置原始索引
-            
-            boolean matchesSearch = course.getName().toLowerCase().contains(searchText);
-            boolean matchesSemester = "全部学期".equals(selectedSemester) || course.getSemester().equals(selectedSemester);
-            boolean matchesType = selectedType == null || course.getCourseType() == selectedType;
-
-            if (matchesSearch && matchesSemester && matchesType) {
-                tableModel.addRow(course.toTableRow(displayIndex++));
-            }
+        if ("全部学期".equals(selectedSemester)) {
+            selectedSemester = null;
         }
+        tableModel.setFilter(selectedSemester, selectedType, searchField.getText());
+        Metrics.record(Metrics.Operation.FILTER, start);
     }
 
     private void updateSemesterList() {
+        // 从列存储的学期字典获取仍有课程的学期，无需遍历课程
+        CourseStore store = calculator.getCourseStore();
+        List<String> sortedSemesters = new ArrayList<>();
+        for (int id = 0; id < store.semesterIdLimit(); id++) {
+            if (store.semesterCourseCount(id) > 0) {
+                sortedSemesters.add(store.semesterName(id));
+            }
+        }
+
+        // 按学期先后排序，与学期趋势图一致
+        sortedSemesters.sort(SemesterTrend.SEMESTER_ORDER);
+
+        // 学期没有变化时不重建下拉框，避免触发筛选
+        if (sortedSemesters.equals(semesters)) return;
+        semesters.clear();
+        semesters.addAll(sortedSemesters);
+
         String currentSelection = (String) semesterFilter.getSelectedItem();
-        semesterFilter.removeAllItems();
-        semesterFilter.addItem("全部学期");
-        
-        // 获取所有不重复的学期
-        Set<String> uniqueSemesters = calculator.getCourses().stream()
-            .map(Course::getSemester)
-            .collect(Collectors.toSet());
-        
-        // 按学期排序（假设格式为"yyyy-学期x"）
-        List<String> sortedSemesters = new ArrayList<>(uniqueSemesters);
-        Collections.sort(sortedSemesters);
-        
-        for (String semester : sortedSemesters) {
-            semesterFilter.addItem(semester);
+        updatingSemesterList = true;
+        try {
+            semesterFilter.removeAllItems();
+            semesterFilter.addItem("全部学期");
+            for (String semester : sortedSemesters) {
+                semesterFilter.addItem(semester);
+            }
+
+            // 恢复之前的选择
+            if (currentSelection != null) {
+                semesterFilter.setSelectedItem(currentSelection);
+            }
+        } finally {
+            updatingSemesterList = false;
         }
-        
-        // 恢复之前的选择
-        if (currentSelection != null) {
-            semesterFilter.setSelectedItem(currentSelection);
+        if (currentSelection != null && !currentSelection.equals(semesterFilter.getSelectedItem())) {
+            // 之前选中的学期已不存在，筛选条件随之变化
+            refreshScheduler.markDirty(RefreshScheduler.Region.TABLE);
         }
     }
 
@@ -432,8 +498,6 @@ public class MainFrame extends JFrame {
 
                 calculator.addCourse(new Course(name, credit, score, selectedBox.isSelected(), 
                     semester, type));
-                updateSemesterList();
-                refreshData();
                 dialog.dispose();
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "请输入有效的数字！");
@@ -453,75 +517,31 @@ public class MainFrame extends JFrame {
         dialog.setVisible(true);
     }
 
-    private void toggleSelectedCourse() {
+    // 表格选中行对应的课程编号，未选中时返回-1
+    private long getSelectedCourseId() {
         int selectedRow = courseTable.getSelectedRow();
-        if (selectedRow < 0) return;
+        if (selectedRow < 0 || selectedRow >= tableModel.getRowCount()) return -1;
+        return tableModel.getCourseId(selectedRow);
+    }
 
-        // 获取选中行对应的课程
-        String courseName = (String) tableModel.getValueAt(selectedRow, 1); // 课程名称在第2列
-        String courseSemester = (String) tableModel.getValueAt(selectedRow, 5);   // 学期在第6列
-        double credit = Double.parseDouble(tableModel.getValueAt(selectedRow, 2).toString()); // 学分在第3列
-        
-        // 查找对应的原始课程
-        for (int i = 0; i < calculator.getCourses().size(); i++) {
-            Course course = calculator.getCourses().get(i);
-            if (course.getName().equals(courseName) && 
-                course.getSemester().equals(courseSemester) && 
-                course.getCredit() == credit) {
-                calculator.toggleCourseSelection(i);
-                refreshData();
-                break;
-            }
-        }
+    private void toggleSelectedCourse() {
+        long id = getSelectedCourseId();
+        if (id < 0) return;
+
+        calculator.toggleCourseSelectionById(id);
     }
 
     private void deleteSelectedCourse() {
-        int selectedRow = courseTable.getSelectedRow();
-        if (selectedRow < 0) return;
+        long id = getSelectedCourseId();
+        if (id < 0) return;
 
-        // 获取选中行对应的课程
-        String courseName = (String) tableModel.getValueAt(selectedRow, 1); // 课程名称在第2列
-        String courseSemester = (String) tableModel.getValueAt(selectedRow, 5);   // 学期在第6列
-        double credit = Double.parseDouble(tableModel.getValueAt(selectedRow, 2).toString()); // 学分在第3列
-        
-        // 查找对应的原始课程
-        for (int i = 0; i < calculator.getCourses().size(); i++) {
-            Course course = calculator.getCourses().get(i);
-            if (course.getName().equals(courseName) && 
-                course.getSemester().equals(courseSemester) && 
-                course.getCredit() == credit) {
-                calculator.removeCourse(i);
-                refreshData();
-                break;
-            }
-        }
+        calculator.removeCourseById(id);
     }
 
     // 修改编辑课程对话框
     private void editSelectedCourse() {
-        int selectedRow = courseTable.getSelectedRow();
-        if (selectedRow < 0) return;
-
         // 获取选中行对应的课程
-        Course selectedCourse = null;
-        int originalIndex = -1;
-        
-        // 查找对应的原始课程
-        String courseName = (String) tableModel.getValueAt(selectedRow, 1); // 课程名称在第2列
-        String courseSemester = (String) tableModel.getValueAt(selectedRow, 5);   // 学期在第6列
-        double credit = Double.parseDouble(tableModel.getValueAt(selectedRow, 2).toString()); // 学分在第3列
-        
-        for (int i = 0; i < calculator.getCourses().size(); i++) {
-            Course c = calculator.getCourses().get(i);
-            if (c.getName().equals(courseName) && 
-                c.getSemester().equals(courseSemester) && 
-                c.getCredit() == credit) {
-                selectedCourse = c;
-                originalIndex = i;
-                break;
-            }
-        }
-        
+        Course selectedCourse = calculator.findById(getSelectedCourseId());
         if (selectedCourse == null) return;
 
         final Course course = selectedCourse;  // 创建final引用
@@ -580,7 +600,6 @@ public class MainFrame extends JFrame {
         JButton confirmButton = new JButton("确定");
         JButton cancelButton = new JButton("取消");
 
-        final int finalOriginalIndex = originalIndex;
         confirmButton.addActionListener(ae -> {
             try {
                 String name = nameField.getText().trim();
@@ -603,17 +622,12 @@ public class MainFrame extends JFrame {
                     return;
                 }
 
-                course.setName(name);
-                course.setCredit(creditValue);
-                course.setScore(score);
-                course.setSelected(selectedBox.isSelected());
-                course.setSemester(newSemester);
-                course.setCourseType(type);
-                course.setMajorCourse(isMajorCourse);
-
-                calculator.updateCourse(finalOriginalIndex, course);
-                updateSemesterList();
-                refreshData();
+                // 以同一编号的新对象替换原课程，便于计算器增量扣除旧值
+                Course updated = new Course(course.getId(), name, creditValue, score, selectedBox.isSelected(),
+                    newSemester, type);
+                updated.setMajorCourse(isMajorCourse);
+
+                calculator.updateCourseById(course.getId(), updated);
                 dialog.dispose();
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "请输入有效的数字！");
@@ -635,10 +649,10 @@ public class MainFrame extends JFrame {
 
     // 添加删除确认对话框
     private boolean showDeleteConfirmDialog() {
-        int selectedRow = courseTable.getSelectedRow();
-        if (selectedRow < 0) return false;
+        // 按选中行的课程编号查找，筛选后行号与课程下标不再对应
+        Course course = calculator.findById(getSelectedCourseId());
+        if (course == null) return false;
 
-        Course course = calculator.getCourses().get(selectedRow);
         int result = JOptionPane.showConfirmDialog(
             this,
             String.format("确定要删除课程\"%s\"吗？\n此操作不可恢复！", course.getName()),
@@ -649,66 +663,107 @@ public class MainFrame extends JFrame {
         return result == JOptionPane.YES_OPTION;
     }
 
-    private void refreshData() {
-        // 更新表格
-        tableModel.setRowCount(0);
-        List<Course> courses = calculator.getCourses();
-        for (int i = 0; i < courses.size(); i++) {
-            Course course = courses.get(i);
-            Object[] rowData = {
-                i + 1,
-                course.getName(),
-                course.getCredit(),
-                course.getScore(),
-                course.getCourseType().getDisplayName(),
-                course.getSemester(),
-                course.isSelected() ? "是" : "否"
-            };
-            tableModel.addRow(rowData);
+    // 按课程变化事件标记需要刷新的区域；表格行直接通知模型，变化过多时改为整表重新筛选
+    private void onCourseChanged(CourseEvent event) {
+        if (event.getType() == CourseEvent.Type.BULK_LOADED) {
+            refreshData();
+            return;
+        }
+        if (event.getType() == CourseEvent.Type.BATCH_ADDED) {
+            // 批量导入的课程在刷新时整体重新筛选
+            tableModel.clear();
+            refreshScheduler.markDirty(RefreshScheduler.Region.TABLE);
+            refreshScheduler.markDirty(RefreshScheduler.Region.SEMESTERS);
+            refreshScheduler.markDirty(RefreshScheduler.Region.STATS);
+            return;
+        }
+        if (!refreshScheduler.isDirty(RefreshScheduler.Region.TABLE)) {
+            if (++pendingRowChanges > MAX_ROW_CHANGES_PER_REFRESH) {
+                // 本轮已有大量行变化（例如批量导入），清空后在刷新时整体重新筛选
+                tableModel.clear();
+                refreshScheduler.markDirty(RefreshScheduler.Region.TABLE);
+            } else {
+                applyRowChange(event);
+            }
+        }
+        if (event.getType() != CourseEvent.Type.SELECTION_TOGGLED) {
+            refreshScheduler.markDirty(RefreshScheduler.Region.SEMESTERS);
         }
+        refreshScheduler.markDirty(RefreshScheduler.Region.STATS);
+    }
+
+    private void applyRowChange(CourseEvent event) {
+        switch (event.getType()) {
+            case ADDED:
+                tableModel.courseAdded(event.getIndex());
+                break;
+            case REMOVED:
+                tableModel.courseRemoved(event.getIndex());
+                break;
+            case UPDATED:
+            case SELECTION_TOGGLED:
+                tableModel.courseUpdated(event.getIndex());
+                break;
+            default:
+                break;
+        }
+    }
+
+    // 全部刷新：表格、统计信息、图表和学期列表
+    private void refreshData() {
+        tableModel.clear();
+        shownSummary = null;
+        refreshScheduler.markAllDirty();
+    }
+
+    // 更新统计标签，只修改数值发生变化的部分；图表数值变化时标记图表待刷新
+    private void updateStatistics() {
+        pendingRowChanges = 0;
+        GPASummary summary = calculator.summarize();
+        GPASummary previous = shownSummary;
+        if (summary == previous) return;
+        shownSummary = summary;
+        // 课程的学期变化时总体统计可能不变，趋势图由其自行比较
+        refreshScheduler.markDirty(RefreshScheduler.Region.TREND);
 
         // 更新GPA信息
-        List<Course> selectedCourses = calculator.getCourses().stream()
-                .filter(Course::isSelected)
-                .collect(Collectors.toList());
-
-        double averageScore = calculateAverageScore(selectedCourses);
-        double standardFiveGPA = calculateStandardFiveGPA(selectedCourses);
-        double standardFourGPA = calculateStandardFourGPA(selectedCourses);
-        double pkuGPA = calculatePKUGPA(selectedCourses);
-        double dgutGPA = calculateDGUTGPA(selectedCourses);
-
-        averageScoreLabel.setText(String.format("总平均分：%.2f", averageScore));
-        standardFiveGPALabel.setText(String.format("标准五分制GPA：%.2f", standardFiveGPA));
-        standardFourGPALabel.setText(String.format("标准四分制GPA：%.2f", standardFourGPA));
-        pkuGPALabel.setText(String.format("北大算法GPA：%.2f", pkuGPA));
-        dgutGPALabel.setText(String.format("大工算法GPA：%.2f", dgutGPA));
+        List<GradingScale> scales = summary.getScales();
+        boolean chartChanged = previous == null;
+        for (int i = 0; i < scales.size(); i++) {
+            if (previous != null && previous.getGradePoint(i) == summary.getGradePoint(i)) continue;
+            gradeLabels.get(i).setText(String.format("%s：%.2f", scales.get(i).getLabel(), summary.getGradePoint(i)));
+            chartChanged |= scales.get(i).isShowInChart();
+        }
 
         // 更新课程分类统计
-        double majorAverage = calculator.calculateMajorAverageScore();
-        double politicalAverage = calculator.calculatePoliticalAverageScore();
-        double qualityAverage = calculator.calculateQualityAverageScore();
-        double generalAverage = calculator.calculateGeneralAverageScore();
-
-        majorAverageLabel.setText(String.format("专业课程均分：%.2f", majorAverage));
-        politicalAverageLabel.setText(String.format("思政课程均分：%.2f", politicalAverage));
-        qualityAverageLabel.setText(String.format("素质课程均分：%.2f", qualityAverage));
-        generalAverageLabel.setText(String.format("通识课程均分：%.2f", generalAverage));
-
-        // 更新图表
-        updateChart();
-        updateSemesterList(); // 更新学期列表
-        filterCourses(); // 应用当前的筛选条件
+        updateTypeAverage(majorAverageLabel, "专业课程均分", Course.CourseType.MAJOR, previous, summary);
+        updateTypeAverage(politicalAverageLabel, "思政课程均分", Course.CourseType.POLITICAL, previous, summary);
+        updateTypeAverage(qualityAverageLabel, "素质课程均分", Course.CourseType.QUALITY, previous, summary);
+        updateTypeAverage(generalAverageLabel, "通识课程均分", Course.CourseType.GENERAL, previous, summary);
+
+        // 图表中的GPA值有变化时才更新图表
+        if (chartChanged) {
+            refreshScheduler.markDirty(RefreshScheduler.Region.CHART);
+        }
     }
 
-    private void updateChart() {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        
-        // 添加各个GPA数据
-        dataset.addValue(calculator.calculateStandardFiveGPA(), "GPA值", "标准五分制");
-        dataset.addValue(calculator.calculateStandardFourGPA(), "GPA值", "标准四分制");
-        dataset.addValue(calculator.calculatePKUGPA(), "GPA值", "北大四分制");
-        dataset.addValue(calculator.calculateDGUTGPA(), "GPA值", "大工算法");
+    private void updateTypeAverage(JLabel label, String title, Course.CourseType type,
+                                   GPASummary previous, GPASummary summary) {
+        double value = summary.getTypeAverageScore(type);
+        if (previous != null && previous.getTypeAverageScore(type) == value) return;
+        label.setText(String.format("%s：%.2f", title, value));
+    }
+
+    // 创建图表，只在启动时调用一次；之后的刷新只修改数据集中的数值
+    private ChartPanel createChart() {
+        // 按配置的GPA算法建立分类，初始值为0
+        double maxPoint = 0;
+        for (GradingScale scale : calculator.getGradingScales()) {
+            if (scale.isShowInChart()) {
+                chartDataset.addValue(0.0, CHART_SERIES, scale.getName());
+                maxPoint = Math.max(maxPoint, scale.getMaxPoint());
+            }
+        }
 
         // 创建图表并设置中文字体
         Font defaultFont = new Font("Microsoft YaHei", Font.PLAIN, 12);
@@ -718,7 +773,7 @@ public class MainFrame extends JFrame {
                 "各算法GPA",
                 "算法类型",
                 "GPA值",
-                dataset,
+                chartDataset,
                 PlotOrientation.VERTICAL,
                 true,
                 true,
@@ -750,127 +805,272 @@ public class MainFrame extends JFrame {
         domainAxis.setLabelFont(defaultFont);
         domainAxis.setCategoryMargin(0.3);
         
-        // 设置Y轴样式
+        // 设置Y轴样式（范围由算法的最高绩点决定，不随数据变化）
         NumberAxis rangeAxis = (NumberAxis) plot.getRangeAxis();
         rangeAxis.setTickLabelFont(defaultFont);
         rangeAxis.setLabelFont(defaultFont);
-        rangeAxis.setRange(0, 5.0);
+        rangeAxis.setRange(0, maxPoint > 0 ? Math.ceil(maxPoint * 2) / 2 : 5.0);
         rangeAxis.setTickUnit(new NumberTickUnit(0.5));
         
         // 设置图例样式
         chart.getLegend().setItemFont(defaultFont);
         chart.getLegend().setFrame(BlockBorder.NONE);
 
-        // 更新图表面板
-        chartPanel.removeAll();
         ChartPanel panel = new ChartPanel(chart);
         panel.setPreferredSize(new Dimension(500, 300));
-        chartPanel.add(panel);
-        chartPanel.revalidate();
-        chartPanel.repaint();
+        return panel;
+    }
+
+    // 只修改数值发生变化的柱，数据集变化时图表自动重绘
+    private void updateChart(GPASummary summary) {
+        long start = Metrics.start();
+        List<GradingScale> scales = summary.getScales();
+        for (int i = 0; i < scales.size(); i++) {
+            GradingScale scale = scales.get(i);
+            if (!scale.isShowInChart()) continue;
+            double value = summary.getGradePoint(i);
+            Number shown = chartDataset.getValue(CHART_SERIES, scale.getName());
+            if (shown == null || shown.doubleValue() != value) {
+                chartDataset.setValue(value, CHART_SERIES, scale.getName());
+            }
+        }
+        Metrics.record(Metrics.Operation.CHART, start);
+    }
+
+    // 学期趋势图：每个显示在图表中的算法一条折线，可切换学期GPA和累计GPA
+    private JPanel createTrendPanel() {
+        Font defaultFont = new Font("Microsoft YaHei", Font.PLAIN, 12);
+        Font titleFont = new Font("Microsoft YaHei", Font.BOLD, 16);
+
+        JFreeChart chart = ChartFactory.createLineChart(
+                "学期GPA趋势",
+                "学期",
+                "GPA值",
+                trendDataset,
+                PlotOrientation.VERTICAL,
+                true,
+                true,
+                false
+        );
+        chart.setBackgroundPaint(Color.white);
+        chart.getTitle().setFont(titleFont);
+
+        CategoryPlot plot = (CategoryPlot) chart.getPlot();
+        plot.setBackgroundPaint(new Color(255, 255, 255));
+        plot.setDomainGridlinePaint(new Color(220, 220, 220));
+        plot.setRangeGridlinePaint(new Color(220, 220, 220));
+        plot.setOutlinePaint(new Color(200, 200, 200));
+
+        LineAndShapeRenderer renderer = (LineAndShapeRenderer) plot.getRenderer();
+        renderer.setDefaultShapesVisible(true);
+
+        CategoryAxis domainAxis = plot.getDomainAxis();
+        domainAxis.setTickLabelFont(defaultFont);
+        domainAxis.setLabelFont(defaultFont);
+        domainAxis.setCategoryLabelPositions(CategoryLabelPositions.UP_45);
+
+        // 纵轴范围与柱状图一致，由算法的最高绩点决定
+        double maxPoint = 0;
+        for (GradingScale scale : calculator.getGradingScales()) {
+            if (scale.isShowInChart()) {
+                maxPoint = Math.max(maxPoint, scale.getMaxPoint());
+            }
+        }
+        NumberAxis rangeAxis = (NumberAxis) plot.getRangeAxis();
+        rangeAxis.setTickLabelFont(defaultFont);
+        rangeAxis.setLabelFont(defaultFont);
+        rangeAxis.setRange(0, maxPoint > 0 ? Math.ceil(maxPoint * 2) / 2 : 5.0);
+        rangeAxis.setTickUnit(new NumberTickUnit(0.5));
+
+        chart.getLegend().setItemFont(defaultFont);
+        chart.getLegend().setFrame(BlockBorder.NONE);
+
+        trendMode = new JComboBox<>(new String[]{"学期GPA", "累计GPA"});
+        trendMode.setFont(defaultFont);
+        trendMode.addActionListener(e -> updateTrendChart());
+        JPanel modePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        modePanel.add(trendMode);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(modePanel, BorderLayout.NORTH);
+        ChartPanel chartView = new ChartPanel(chart);
+        chartView.setPreferredSize(new Dimension(500, 300));
+        panel.add(chartView, BorderLayout.CENTER);
+        return panel;
     }
 
-    private double calculateAverageScore(List<Course> courses) {
-        if (courses.isEmpty()) return 0.0;
-        double totalScore = 0.0;
-        double totalCredit = 0.0;
-        for (Course course : courses) {
-            totalScore += course.getScore() * course.getCredit();
-            totalCredit += course.getCredit();
+    // 学期列表变化时重建数据集；否则只修改数值变化的点，修改一个学期的课程时学期GPA只变动该学期的点
+    private void updateTrendChart() {
+        long start = Metrics.start();
+        SemesterTrend trend = calculator.getSemesterTrend();
+        boolean cumulative = trendMode.getSelectedIndex() == 1;
+        List<String> semesters = trend.getSemesters();
+        if (!semesters.equals(trendDataset.getColumnKeys())) {
+            trendDataset.clear();
         }
-        return totalCredit == 0 ? 0 : totalScore / totalCredit;
+        List<GradingScale> scales = trend.getScales();
+        for (int s = 0; s < scales.size(); s++) {
+            GradingScale scale = scales.get(s);
+            if (!scale.isShowInChart()) continue;
+            for (int i = 0; i < semesters.size(); i++) {
+                double value = cumulative ? trend.getCumulativeGradePoint(s, i) : trend.getTermGradePoint(s, i);
+                String semester = semesters.get(i);
+                boolean present = trendDataset.getRowIndex(scale.getName()) >= 0
+                    && trendDataset.getColumnIndex(semester) >= 0;
+                Number shown = present ? trendDataset.getValue(scale.getName(), semester) : null;
+                if (shown == null || shown.doubleValue() != value) {
+                    trendDataset.setValue(value, scale.getName(), semester);
+                }
+            }
+        }
+        Metrics.record(Metrics.Operation.CHART, start);
     }
 
-    private double calculateStandardFiveGPA(List<Course> courses) {
-        if (courses.isEmpty()) return 0.0;
-        double totalGPA = 0.0;
-        double totalCredit = 0.0;
-        for (Course course : courses) {
-            if (!course.isSelected()) continue;
-            double score = course.getScore();
-            double gpa;
-            if (score >= 95) gpa = 5.0;
-            else if (score >= 90) gpa = 4.5;
-            else if (score >= 85) gpa = 4.0;
-            else if (score >= 80) gpa = 3.5;
-            else if (score >= 75) gpa = 3.0;
-            else if (score >= 70) gpa = 2.5;
-            else if (score >= 65) gpa = 2.0;
-            else if (score >= 60) gpa = 1.0;
-            else gpa = 0.0;
-            totalGPA += gpa * course.getCredit();
-            totalCredit += course.getCredit();
+    private void startLoading() {
+        loading = true;
+        addButton.setEnabled(false);
+        importButton.setEnabled(false);
+        loadProgress.setVisible(true);
+        new CourseLoader(calculator.beginLoad()).execute();
+    }
+
+    // 在后台线程解析数据文件，解析出的每条修改分批交给EDT回放，表格随之逐步填充
+    private class CourseLoader extends SwingWorker<Void, Consumer<CourseRepository.Replay>> {
+        private final CourseRepository.Replay target;
+        private int loadedCount;
+
+        CourseLoader(CourseRepository.Replay target) {
+            this.target = target;
+        }
+
+        // 读取结束（包括失败）也作为最后一步发布，保证在全部回放之后处理
+        @Override
+        protected Void doInBackground() {
+            Exception error = null;
+            try {
+                load();
+            } catch (Exception e) {
+                error = e;
+            }
+            Exception result = error;
+            publish(r -> finishLoading(result));
+            return null;
+        }
+
+        private void load() throws IOException {
+            calculator.getRepository().load(new CourseRepository.Replay() {
+                @Override
+                public void add(Course course) {
+                    publish(r -> r.add(course));
+                }
+
+                @Override
+                public void remove(int index) {
+                    publish(r -> r.remove(index));
+                }
+
+                @Override
+                public void update(int index, Course course) {
+                    publish(r -> r.update(index, course));
+                }
+
+                @Override
+                public void toggle(int index) {
+                    publish(r -> r.toggle(index));
+                }
+            });
+        }
+
+        @Override
+        protected void process(List<Consumer<CourseRepository.Replay>> steps) {
+            for (Consumer<CourseRepository.Replay> step : steps) {
+                step.accept(target);
+            }
+            loadedCount += steps.size();
+            if (loading) {
+                loadProgress.setString(String.format("正在读取课程数据…已读取%d条", loadedCount));
+            }
         }
-        return totalCredit == 0 ? 0 : totalGPA / totalCredit;
     }
 
-    private double calculateStandardFourGPA(List<Course> courses) {
-        if (courses.isEmpty()) return 0.0;
-        double totalGPA = 0.0;
-        double totalCredit = 0.0;
-        for (Course course : courses) {
-            if (!course.isSelected()) continue;
-            double score = course.getScore();
-            double gpa;
-            if (score >= 90) gpa = 4.0;
-            else if (score >= 80) gpa = 3.0;
-            else if (score >= 70) gpa = 2.0;
-            else if (score >= 60) gpa = 1.0;
-            else gpa = 0.0;
-            totalGPA += gpa * course.getCredit();
-            totalCredit += course.getCredit();
+    private void finishLoading(Exception error) {
+        loading = false;
+        addButton.setEnabled(true);
+        importButton.setEnabled(true);
+        loadProgress.setVisible(false);
+        if (error != null) {
+            error.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                "无法读取课程数据：" + error.getMessage(),
+                "文件读取错误",
+                JOptionPane.ERROR_MESSAGE);
         }
-        return totalCredit == 0 ? 0 : totalGPA / totalCredit;
     }
 
-    private double calculatePKUGPA(List<Course> courses) {
-        if (courses.isEmpty()) return 0.0;
-        double totalGPA = 0.0;
-        double totalCredit = 0.0;
-        for (Course course : courses) {
-            if (!course.isSelected()) continue;
-            double score = course.getScore();
-            double gpa;
-            if (score >= 90) gpa = 4.0;
-            else if (score >= 85) gpa = 3.7;
-            else if (score >= 82) gpa = 3.3;
-            else if (score >= 78) gpa = 3.0;
-            else if (score >= 75) gpa = 2.7;
-            else if (score >= 72) gpa = 2.3;
-            else if (score >= 68) gpa = 2.0;
-            else if (score >= 64) gpa = 1.5;
-            else if (score >= 60) gpa = 1.0;
-            else gpa = 0.0;
-            totalGPA += gpa * course.getCredit();
-            totalCredit += course.getCredit();
+    // 选择CSV或Excel成绩单，在后台线程解析和校验，通过校验的课程一次性加入并保存
+    private void importCourses() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("成绩单（*.csv, *.xlsx）", "csv", "xlsx"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
-        return totalCredit == 0 ? 0 : totalGPA / totalCredit;
+        File file = chooser.getSelectedFile();
+        importButton.setEnabled(false);
+        new SwingWorker<CourseImporter.Result, Void>() {
+            @Override
+            protected CourseImporter.Result doInBackground() throws IOException {
+                return CourseImporter.importFile(file);
+            }
+
+            @Override
+            protected void done() {
+                importButton.setEnabled(!loading);
+                CourseImporter.Result result;
+                try {
+                    result = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "无法导入课程：" + cause.getMessage(),
+                        "导入错误",
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                calculator.addCourses(result.getCourses());
+                showImportReport(result);
+            }
+        }.execute();
     }
 
-    private double calculateDGUTGPA(List<Course> courses) {
-        if (courses.isEmpty()) return 0.0;
-        double totalGPA = 0.0;
-        double totalCredit = 0.0;
-        for (Course course : courses) {
-            if (!course.isSelected()) continue;
-            double score = course.getScore();
-            double gpa = (score - 50) / 10;
-            if (gpa < 0) gpa = 0;
-            totalGPA += gpa * course.getCredit();
-            totalCredit += course.getCredit();
+    private void showImportReport(CourseImporter.Result result) {
+        String message = String.format("已导入%d门课程", result.getCourses().size());
+        if (result.getErrors().isEmpty()) {
+            JOptionPane.showMessageDialog(this, message, "导入完成", JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
-        return totalCredit == 0 ? 0 : totalGPA / totalCredit;
+        JTextArea errors = new JTextArea(String.join("\n", result.getErrors()));
+        errors.setEditable(false);
+        errors.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
+        JScrollPane scrollPane = new JScrollPane(errors);
+        scrollPane.setPreferredSize(new Dimension(400, 200));
+        JOptionPane.showMessageDialog(this,
+            new Object[]{message + String.format("，%d行未通过校验：", result.getErrors().size()), scrollPane},
+            "导入完成",
+            JOptionPane.WARNING_MESSAGE);
     }
 
     public static void main(String[] args) {
+        Metrics.install();
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
             e.printStackTrace();
         }
-        
+
+        // 在主线程读取算法配置、创建存储，EDT只负责搭建界面
+        GPACalculator calculator = new GPACalculator();
         SwingUtilities.invokeLater(() -> {
-            MainFrame frame = new MainFrame();
+            MainFrame frame = new MainFrame(calculator);
             frame.setVisible(true);
         });
     }
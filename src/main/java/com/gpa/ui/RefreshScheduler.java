@@ -0,0 +1,70 @@
+package com.gpa.ui;
+
+import com.gpa.service.Metrics;
+
+import javax.swing.SwingUtilities;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+// 界面刷新调度：各区域先标记为待刷新，在同一轮EDT事件处理结束后统一刷新一次
+// 连续的多次修改（例如批量导入）只会触发一次刷新
+final class RefreshScheduler {
+    // 刷新按声明顺序进行：学期列表可能改变筛选条件，统计结果决定图表和趋势图是否需要更新
+    enum Region {
+        SEMESTERS,
+        TABLE,
+        STATS,
+        CHART,
+        TREND
+    }
+
+    private final Map<Region, Runnable> handlers = new EnumMap<>(Region.class);
+    private final Set<Region> dirty = EnumSet.noneOf(Region.class);
+    private boolean scheduled;
+
+    void register(Region region, Runnable handler) {
+        handlers.put(region, handler);
+    }
+
+    // 可在任意线程调用
+    synchronized void markDirty(Region region) {
+        dirty.add(region);
+        if (!scheduled) {
+            scheduled = true;
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    void markAllDirty() {
+        for (Region region : Region.values()) {
+            markDirty(region);
+        }
+    }
+
+    synchronized boolean isDirty(Region region) {
+        return dirty.contains(region);
+    }
+
+    // 依次刷新待刷新的区域；刷新过程中新标记的区域在本轮一并处理，整轮计入刷新耗时
+    void flush() {
+        long start = Metrics.start();
+        while (true) {
+            Region next;
+            synchronized (this) {
+                if (dirty.isEmpty()) {
+                    scheduled = false;
+                    Metrics.record(Metrics.Operation.REFRESH, start);
+                    return;
+                }
+                next = dirty.iterator().next();
+                dirty.remove(next);
+            }
+            Runnable handler = handlers.get(next);
+            if (handler != null) {
+                handler.run();
+            }
+        }
+    }
+}
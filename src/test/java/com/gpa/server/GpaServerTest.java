@@ -0,0 +1,152 @@
+package com.gpa.server;
+
+import com.gpa.model.Course;
+import com.gpa.service.DiscardingRepository;
+import com.gpa.service.GPACalculator;
+import com.gpa.service.GradingScales;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// 在本机随机端口启动服务，通过HTTP检查各接口的状态码和返回内容
+public class GpaServerTest {
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    private GPACalculator calculator;
+    private GpaServer server;
+    private int port;
+
+    @Before
+    public void setUp() throws Exception {
+        calculator = new GPACalculator(GradingScales.load(), new DiscardingRepository());
+        calculator.load();
+        server = new GpaServer(calculator, Executors.newFixedThreadPool(2));
+        port = server.start(0);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        calculator.close();
+    }
+
+    @Test
+    public void coursesCanBeAddedReadAndToggled() throws Exception {
+        Response empty = request("GET", "/courses", null);
+        assertEquals(200, empty.status);
+        assertEquals("[]", empty.body);
+
+        Response added = request("POST", "/courses", form("高等数学", 5, 92, "MAJOR"));
+        assertEquals(added.body, 201, added.status);
+        assertTrue(added.body, added.body.contains("\"name\":\"高等数学\""));
+        long id = id(added.body);
+
+        Response read = request("GET", "/courses/" + id, null);
+        assertEquals(200, read.status);
+        assertTrue(read.body, read.body.contains("\"selected\":true"));
+
+        Response toggled = request("POST", "/courses/" + id + "/toggle", "");
+        assertEquals(200, toggled.status);
+        assertTrue(toggled.body, toggled.body.contains("\"selected\":false"));
+        assertTrue(!calculator.findById(id).isSelected());
+
+        Response gpa = request("GET", "/gpa", null);
+        assertEquals(200, gpa.status);
+        assertTrue(gpa.body, gpa.body.startsWith("{\"courseCount\":1,"));
+
+        assertEquals(404, request("GET", "/courses/" + (id + 1000), null).status);
+        assertEquals(400, request("POST", "/courses", "name=x").status);
+    }
+
+    @Test
+    public void batchAppliesOperationsInOrder() throws Exception {
+        long first = id(request("POST", "/courses", form("线性代数", 4, 85, "MAJOR")).body);
+        long second = id(request("POST", "/courses", form("大学体育", 1, 90, "QUALITY")).body);
+
+        Response batch = request("POST", "/batch", "op=update&id=" + first + "&" + form("线性代数", 4, 88, "MAJOR") + "\n"
+            + "op=toggle&id=" + second + "\n"
+            + "op=add&" + form("概率论", 3, 79, "MAJOR") + "\n"
+            + "op=delete&id=" + second + "\n");
+        assertEquals(batch.body, 200, batch.status);
+        assertTrue(batch.body, batch.body.startsWith("{\"applied\":4,\"addedIds\":["));
+        assertEquals(2, calculator.snapshot().size());
+        assertEquals(88, calculator.findById(first).getScore(), 0);
+        assertNull(calculator.findById(second));
+    }
+
+    @Test
+    public void batchReferringToDeletedCourseIsRejectedWhole() throws Exception {
+        long id = id(request("POST", "/courses", form("数据结构", 3, 91, "MAJOR")).body);
+
+        Response batch = request("POST", "/batch", "op=toggle&id=" + id + "\n"
+            + "op=delete&id=" + id + "\n"
+            + "op=update&id=" + id + "&" + form("数据结构", 3, 60, "MAJOR") + "\n");
+        assertEquals(batch.body, 409, batch.status);
+        assertTrue(batch.body, batch.body.contains("第3行"));
+        Course course = calculator.findById(id);
+        assertTrue(course.isSelected());
+        assertEquals(91, course.getScore(), 0);
+
+        assertEquals(400, request("POST", "/batch", "op=rename&id=" + id).status);
+    }
+
+    private Response request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                byte[] buffer = new byte[4096];
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    bytes.write(buffer, 0, n);
+                }
+            }
+        }
+        return new Response(status, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static String form(String name, double credit, double score, String type) throws IOException {
+        return "name=" + URLEncoder.encode(name, "UTF-8") + "&credit=" + credit + "&score=" + score
+            + "&type=" + type + "&semester=2020-2021-1&selected=true";
+    }
+
+    private static long id(String json) {
+        Matcher matcher = ID.matcher(json);
+        assertTrue(json, matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// CSV中双引号包围的字段可以跨行，行号按记录起始行计算
+public class CourseImporterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void quotedFieldSpansLines() throws Exception {
+        CourseImporter.Result result = importCsv("课程名称,学分,成绩,课程类型,学期,是否计入GPA\r\n"
+            + "\"数据结构\r\n（实验）\",3,90,MAJOR,2020-2021-1,是\r\n"
+            + "\r\n"
+            + "\"线性\"\"代数\"\"\",2,abc,MAJOR,2020-2021-1,是\n"
+            + "概率论,4,85,MAJOR,2020-2021-2\n");
+        assertEquals(2, result.getCourses().size());
+        assertEquals("数据结构\r\n（实验）", result.getCourses().get(0).getName());
+        assertEquals(Course.CourseType.MAJOR, result.getCourses().get(0).getCourseType());
+        assertEquals("概率论", result.getCourses().get(1).getName());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0), result.getErrors().get(0).startsWith("第5行："));
+    }
+
+    @Test
+    public void unterminatedQuoteIsReportedOnItsStartLine() throws Exception {
+        CourseImporter.Result result = importCsv("高等数学,5,92,MAJOR,2020-2021-1\n"
+            + "\"大学物理,4,88,MAJOR,2020-2021-1\n"
+            + "体育,1,95,QUALITY,2020-2021-1\n");
+        assertEquals(1, result.getCourses().size());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0), result.getErrors().get(0).startsWith("第2行：双引号未闭合"));
+    }
+
+    private CourseImporter.Result importCsv(String text) throws Exception {
+        File file = folder.newFile("courses.csv");
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return CourseImporter.importCsv(file);
+    }
+}
@@ -0,0 +1,101 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// 日志记录写入后能按原样重放，合并后只保留之后的记录，关闭后追加得到明确的IOException
+public class CourseJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void longNamesSurviveReplay() throws Exception {
+        File file = folder.newFile("score.xlsx.journal");
+        StringBuilder name = new StringBuilder();
+        while (name.length() < 70000) {
+            name.append("很长的课程名称");
+        }
+        CourseJournal journal = new CourseJournal(file, false);
+        journal.open(0, new Recorder());
+        journal.append(CourseJournal.ADD, 0, new Course(name.toString(), 3, 90, true, "2020-2021-1", Course.CourseType.MAJOR));
+        journal.append(CourseJournal.TOGGLE, 0, null);
+        journal.close();
+
+        Recorder replayed = new Recorder();
+        new CourseJournal(file, false).open(0, replayed);
+        assertEquals(Arrays.asList("add " + name, "toggle 0"), replayed.events);
+    }
+
+    @Test
+    public void truncateKeepsLaterRecords() throws Exception {
+        File file = folder.newFile("score.xlsx.journal");
+        CourseJournal journal = new CourseJournal(file, false);
+        journal.open(0, new Recorder());
+        journal.appendAdds(0, Arrays.asList(course("高等数学"), course("线性代数"), course("概率论")));
+        journal.truncateThrough(2);
+        assertEquals(1, journal.getRecordCount());
+        journal.append(CourseJournal.REMOVE, 0, null);
+        journal.close();
+
+        Recorder replayed = new Recorder();
+        CourseJournal reopened = new CourseJournal(file, false);
+        reopened.open(2, replayed);
+        assertEquals(Arrays.asList("add 概率论", "remove 0"), replayed.events);
+        assertEquals(4, reopened.getLastSeq());
+        reopened.close();
+    }
+
+    @Test
+    public void appendAfterCloseThrowsIOException() throws Exception {
+        CourseJournal journal = new CourseJournal(folder.newFile("score.xlsx.journal"), false);
+        journal.open(0, new Recorder());
+        journal.close();
+        try {
+            journal.append(CourseJournal.ADD, 0, course("高等数学"));
+            fail("关闭后追加应抛出IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("已关闭"));
+        }
+        journal.sync();
+    }
+
+    private static Course course(String name) {
+        return new Course(name, 2, 85, true, "2020-2021-1", Course.CourseType.MAJOR);
+    }
+
+    private static final class Recorder implements CourseJournal.Visitor {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void add(Course course) {
+            events.add("add " + course.getName());
+        }
+
+        @Override
+        public void remove(int index) {
+            events.add("remove " + index);
+        }
+
+        @Override
+        public void update(int index, Course course) {
+            events.add("update " + index + " " + course.getName());
+        }
+
+        @Override
+        public void toggle(int index) {
+            events.add("toggle " + index);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+// 测试用的存储：不读写任何文件，使测试只涉及内存中的计算
+public class DiscardingRepository implements CourseRepository {
+    @Override
+    public void load(Replay replay) throws IOException {
+    }
+
+    @Override
+    public void added(Course course) {
+    }
+
+    @Override
+    public void addedAll(List<Course> courses) {
+    }
+
+    @Override
+    public void removed(int index, Course course) {
+    }
+
+    @Override
+    public void updated(int index, Course previous, Course current) {
+    }
+
+    @Override
+    public void toggled(int index, Course course) {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void setErrorHandler(Consumer<Exception> handler) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
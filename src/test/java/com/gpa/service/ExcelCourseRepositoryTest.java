@@ -0,0 +1,68 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// 只读读取当前课程：工作簿加上尚未合并的日志，且不改动任何文件
+public class ExcelCourseRepositoryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readCurrentReplaysUncompactedJournal() throws Exception {
+        File workbook = new File(folder.getRoot(), "score.xlsx");
+        ExcelCourseWriter.write(Arrays.asList(course("高等数学", 90), course("线性代数", 80)), workbook, false, 0);
+        File journalFile = new File(workbook.getPath() + ".journal");
+        CourseJournal journal = new CourseJournal(journalFile);
+        journal.open(0, null);
+        journal.append(CourseJournal.ADD, 2, course("概率论", 70));
+        journal.append(CourseJournal.REMOVE, 0, null);
+        journal.append(CourseJournal.TOGGLE, 0, null);
+        journal.close();
+        byte[] journalBytes = Files.readAllBytes(journalFile.toPath());
+
+        List<Course> courses = ExcelCourseRepository.readCurrent(workbook);
+        assertEquals(2, courses.size());
+        assertEquals("线性代数", courses.get(0).getName());
+        assertFalse(courses.get(0).isSelected());
+        assertEquals("概率论", courses.get(1).getName());
+
+        assertArrayEquals(journalBytes, Files.readAllBytes(journalFile.toPath()));
+        assertFalse(new File(workbook.getPath() + ".bin").exists());
+    }
+
+    @Test
+    public void readCurrentRejectsJournalWithGap() throws Exception {
+        File workbook = new File(folder.getRoot(), "score.xlsx");
+        ExcelCourseWriter.write(Arrays.asList(course("高等数学", 90)), workbook, false, 0);
+        CourseJournal journal = new CourseJournal(new File(workbook.getPath() + ".journal"));
+        journal.open(0, null);
+        journal.appendAdds(1, Arrays.asList(course("线性代数", 80), course("概率论", 70)));
+        journal.truncateThrough(1);
+        journal.close();
+        try {
+            ExcelCourseRepository.readCurrent(workbook);
+            fail("日志缺少记录时应抛出IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("不连续"));
+        }
+    }
+
+    private static Course course(String name, double score) {
+        return new Course(name, 3, score, true, "2020-2021-1", Course.CourseType.MAJOR);
+    }
+}
@@ -0,0 +1,100 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.gpa.service.TestCourses.randomCourse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// 按编号修改、删除和切换课程：前面的课程被删除、下标前移后仍作用于同一门课程，编号不存在时不做修改
+public class GPACalculatorByIdTest {
+    private final List<String> saved = new ArrayList<>();
+    private GPACalculator calculator;
+    private long first;
+    private long second;
+    private long third;
+
+    @Before
+    public void setUp() throws Exception {
+        calculator = new GPACalculator(GradingScales.load(), new RecordingRepository());
+        calculator.load();
+        Random random = new Random(7);
+        for (String name : new String[] {"高等数学", "线性代数", "大学物理"}) {
+            Course course = randomCourse(random, name);
+            course.setSelected(true);
+            calculator.addCourse(course);
+        }
+        first = calculator.snapshot().get(0).getId();
+        second = calculator.snapshot().get(1).getId();
+        third = calculator.snapshot().get(2).getId();
+        saved.clear();
+    }
+
+    @Test
+    public void operationsFollowCourseAfterEarlierRemoval() {
+        calculator.removeCourseById(first);
+        assertEquals(1, calculator.indexOf(third));
+
+        calculator.toggleCourseSelectionById(third);
+        assertFalse(calculator.findById(third).isSelected());
+        assertTrue(calculator.findById(second).isSelected());
+
+        Course updated = calculator.findById(third).copy();
+        updated.setScore(61);
+        calculator.updateCourseById(third, updated);
+        assertEquals(61, calculator.findById(third).getScore(), 0);
+        assertEquals("线性代数", calculator.snapshot().get(0).getName());
+
+        calculator.removeCourseById(third);
+        assertEquals(1, calculator.snapshot().size());
+        assertEquals(second, calculator.snapshot().get(0).getId());
+
+        // 存储收到的下标是操作时课程所在的位置
+        assertEquals("removed 0 " + first, saved.get(0));
+        assertEquals("toggled 1 " + third, saved.get(1));
+        assertEquals("updated 1 " + third, saved.get(2));
+        assertEquals("removed 1 " + third, saved.get(3));
+    }
+
+    @Test
+    public void missingIdChangesNothing() {
+        calculator.removeCourseById(second);
+        long version = calculator.snapshot().getVersion();
+        saved.clear();
+
+        calculator.removeCourseById(second);
+        calculator.toggleCourseSelectionById(second);
+        calculator.updateCourseById(second, new Course("数据结构", 3, 90, true, "2020-2021-1", Course.CourseType.MAJOR));
+
+        assertEquals(-1, calculator.indexOf(second));
+        assertNull(calculator.findById(second));
+        assertEquals(version, calculator.snapshot().getVersion());
+        assertEquals(2, calculator.snapshot().size());
+        assertTrue(saved.isEmpty());
+    }
+
+    private final class RecordingRepository extends DiscardingRepository {
+        @Override
+        public void removed(int index, Course course) {
+            saved.add("removed " + index + " " + course.getId());
+        }
+
+        @Override
+        public void updated(int index, Course previous, Course current) {
+            saved.add("updated " + index + " " + current.getId());
+        }
+
+        @Override
+        public void toggled(int index, Course course) {
+            saved.add("toggled " + index + " " + course.getId());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.gpa.service.TestCourses.assertSummaryEquals;
+import static com.gpa.service.TestCourses.randomCourse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// 多个线程读取快照的同时另有线程增删改和切换课程：每个快照中的课程与统计结果都应一致
+public class GPACalculatorConcurrencyTest {
+    private static final double DELTA = 1e-6;
+    private static final int READERS = 4;
+    private static final int WRITERS = 2;
+    private static final int WRITES_PER_THREAD = 3000;
+
+    private List<GradingScale> scales;
+    private GPACalculator calculator;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        scales = GradingScales.load();
+        calculator = new GPACalculator(scales, new DiscardingRepository());
+        calculator.load();
+        executor = Executors.newFixedThreadPool(READERS + WRITERS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void snapshotsStayConsistentUnderConcurrentWrites() throws Exception {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                int checked = 0;
+                long lastVersion = -1;
+                do {
+                    CourseSnapshot snapshot = calculator.snapshot();
+                    assertTrue("快照版本倒退", snapshot.getVersion() >= lastVersion);
+                    lastVersion = snapshot.getVersion();
+                    List<Course> courses = snapshot.getCourses();
+                    assertEquals(snapshot.size(), courses.size());
+                    assertSummaryEquals("version " + snapshot.getVersion(),
+                        GPASummary.of(scales, courses), snapshot.getSummary(), DELTA);
+                    checked++;
+                } while (writing.get());
+                return checked;
+            }));
+        }
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            Random random = new Random(w);
+            writers.add(executor.submit((Callable<Void>) () -> {
+                try {
+                    start.await();
+                    for (int step = 0; step < WRITES_PER_THREAD; step++) {
+                        write(random, step);
+                    }
+                } finally {
+                    writersDone.countDown();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        assertTrue("写线程超时", writersDone.await(60, TimeUnit.SECONDS));
+        writing.set(false);
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        for (Future<Integer> reader : readers) {
+            assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+        }
+        assertSummaryEquals("final", calculator.recomputeSummary(), calculator.summarize(), DELTA);
+    }
+
+    @Test
+    public void changingCourseAfterHandingItOverDoesNotLeakIn() {
+        Course course = randomCourse(new Random(1), "高等数学");
+        calculator.addCourse(course);
+        GPASummary before = calculator.summarize();
+
+        course.setScore(course.getScore() == 100 ? 0 : 100);
+        course.setSelected(!course.isSelected());
+        assertSummaryEquals("after add", before, calculator.snapshot().getSummary(), DELTA);
+        assertSummaryEquals("after add", GPASummary.of(scales, calculator.getCourses()), before, DELTA);
+
+        Course updated = course.copy();
+        calculator.updateCourseById(course.getId(), updated);
+        GPASummary afterUpdate = calculator.summarize();
+        updated.setCredit(updated.getCredit() + 10);
+        assertSummaryEquals("after update", afterUpdate, GPASummary.of(scales, calculator.getCourses()), DELTA);
+        assertNotNull(calculator.findById(course.getId()));
+        assertEquals(course.getCredit(), calculator.findById(course.getId()).getCredit(), DELTA);
+    }
+
+    @Test
+    public void publishedCoursesAreReadOnly() {
+        calculator.addCourse(randomCourse(new Random(2), "线性代数"));
+        Course published = calculator.snapshot().get(0);
+        assertTrue(published.isReadOnly());
+        try {
+            published.setScore(0);
+            fail("快照中的课程不应允许修改");
+        } catch (UnsupportedOperationException expected) {
+            // 只读副本拒绝修改
+        }
+        calculator.toggleCourseSelection(0);
+        assertTrue(calculator.findById(published.getId()).isReadOnly());
+
+        Course editable = published.copy();
+        editable.setScore(0);
+        calculator.updateCourseById(editable.getId(), editable);
+        assertEquals(0, calculator.snapshot().get(0).getScore(), DELTA);
+    }
+
+    // 按编号操作：其他写线程可能刚删除了选中的课程，此时不做修改
+    private void write(Random random, int step) {
+        List<Course> courses = calculator.getCourses();
+        int op = courses.isEmpty() ? 0 : random.nextInt(6);
+        long id = courses.isEmpty() ? -1 : courses.get(random.nextInt(courses.size())).getId();
+        switch (op) {
+            case 0: {
+                // 交给计算器后再修改原对象，不应影响统计
+                Course course = randomCourse(random, "新增" + step);
+                calculator.addCourse(course);
+                course.setScore(random.nextInt(101));
+                break;
+            }
+            case 1:
+                calculator.removeCourseById(id);
+                break;
+            case 2: {
+                Course course = randomCourse(random, "修改" + step).copy(id);
+                calculator.updateCourseById(id, course);
+                course.setCredit(course.getCredit() + 1);
+                break;
+            }
+            case 3:
+                calculator.toggleCourseSelectionById(id);
+                break;
+            case 4:
+                calculator.addCourses(Arrays.asList(randomCourse(random, "批量" + step), randomCourse(random, "批量" + step)));
+                break;
+            default:
+                if (courses.size() > 20) {
+                    calculator.removeCourseById(id);
+                }
+                break;
+        }
+    }
+}
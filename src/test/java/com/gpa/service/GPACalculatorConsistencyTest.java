@@ -0,0 +1,67 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.gpa.service.TestCourses.assertSummaryEquals;
+import static com.gpa.service.TestCourses.randomCourse;
+
+// 一致性校验模式下随机增删改和切换课程，每一步的增量统计都应与全量重算一致
+public class GPACalculatorConsistencyTest {
+    private static final double DELTA = 1e-9;
+
+    private List<GradingScale> scales;
+    private GPACalculator calculator;
+    private Random random;
+
+    @Before
+    public void setUp() throws Exception {
+        scales = GradingScales.load();
+        calculator = new GPACalculator(scales, new DiscardingRepository());
+        calculator.load();
+        calculator.setConsistencyCheckEnabled(true);
+        random = new Random(42);
+    }
+
+    @Test
+    public void incrementalAggregatesMatchRecomputeAfterEveryStep() {
+        for (int step = 0; step < 3000; step++) {
+            int size = calculator.snapshot().size();
+            int op = size == 0 ? 0 : random.nextInt(5);
+            switch (op) {
+                case 0:
+                    calculator.addCourse(randomCourse(random, "新增" + step));
+                    break;
+                case 1:
+                    calculator.removeCourse(random.nextInt(size));
+                    break;
+                case 2:
+                    calculator.updateCourse(random.nextInt(size), randomCourse(random, "修改" + step));
+                    break;
+                case 3:
+                    calculator.toggleCourseSelection(random.nextInt(size));
+                    break;
+                default:
+                    calculator.addCourses(Arrays.asList(randomCourse(random, "批量" + step), randomCourse(random, "批量" + step)));
+                    break;
+            }
+            assertSummaryEquals("step " + step, calculator.recomputeSummary(), calculator.summarize(), DELTA);
+        }
+    }
+
+    @Test
+    public void removingEveryCourseResetsToEmpty() {
+        for (int i = 0; i < 50; i++) {
+            calculator.addCourse(randomCourse(random, "课程" + i));
+        }
+        while (calculator.snapshot().size() > 0) {
+            calculator.removeCourse(random.nextInt(calculator.snapshot().size()));
+        }
+        assertSummaryEquals("empty", GPASummary.empty(scales), calculator.summarize(), DELTA);
+    }
+}
@@ -0,0 +1,53 @@
+package com.gpa.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+// 查表换算与按配置精确计算应一致，包括不在0.1分网格上的分界值
+public class GradingScaleTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void stepsOffGridThresholdIsExact() {
+        GradingScale scale = GradingScale.steps("t", "t", "t", false,
+            new double[]{59.95, 84.75, 90}, new double[]{1.0, 3.0, 4.0});
+        assertEquals(0.0, scale.gradePoint(59.9), DELTA);
+        assertEquals(0.0, scale.gradePoint(59.94), DELTA);
+        assertEquals(1.0, scale.gradePoint(59.95), DELTA);
+        assertEquals(1.0, scale.gradePoint(84.7), DELTA);
+        assertEquals(1.0, scale.gradePoint(84.74), DELTA);
+        assertEquals(3.0, scale.gradePoint(84.75), DELTA);
+        assertEquals(3.0, scale.gradePoint(89.99), DELTA);
+        assertEquals(4.0, scale.gradePoint(90), DELTA);
+    }
+
+    @Test
+    public void linearOffGridStartIsExact() {
+        GradingScale scale = GradingScale.linear("t", "t", "t", false, 59.95, 0.1);
+        assertEquals(0.0, scale.gradePoint(59.9), DELTA);
+        assertEquals(0.0, scale.gradePoint(59.94), DELTA);
+        assertEquals(0.005, scale.gradePoint(60.0), DELTA);
+        assertEquals(0.004, scale.gradePoint(59.99), DELTA);
+        assertEquals(4.005, scale.gradePoint(100), DELTA);
+    }
+
+    @Test
+    public void tableMatchesExactRulesOnFineGrid() {
+        double[] thresholds = {60, 63.3, 66.65, 70, 84.75};
+        double[] points = {1.0, 1.3, 1.7, 2.0, 3.5};
+        GradingScale scale = GradingScale.steps("t", "t", "t", false, thresholds, points);
+        for (int i = 0; i <= 100000; i++) {
+            double score = i / 1000.0;
+            double expected = 0;
+            double best = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < thresholds.length; k++) {
+                if (score >= thresholds[k] && thresholds[k] > best) {
+                    best = thresholds[k];
+                    expected = points[k];
+                }
+            }
+            assertEquals("score " + score, expected, scale.gradePoint(score), DELTA);
+        }
+    }
+}
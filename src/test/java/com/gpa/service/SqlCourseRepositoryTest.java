@@ -0,0 +1,87 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// 批量新增后按编号删除和切换的都是对应的行；未打开或已关闭时修改得到IOException
+public class SqlCourseRepositoryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void batchInsertedRowsFollowTheirCourses() throws Exception {
+        File database = new File(folder.getRoot(), "score");
+        GPACalculator calculator = new GPACalculator(GradingScales.load(), SqlCourseRepository.embedded(database, null));
+        calculator.load();
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            courses.add(new Course("课程" + i, 1 + i % 4, 60 + i % 40, true, "2020-2021-1", Course.CourseType.MAJOR));
+        }
+        calculator.addCourses(courses);
+        calculator.removeCourseById(calculator.snapshot().get(10).getId());
+        calculator.toggleCourseSelectionById(calculator.snapshot().get(20).getId());
+        calculator.close();
+
+        GPACalculator reopened = new GPACalculator(GradingScales.load(), SqlCourseRepository.embedded(database, null));
+        reopened.load();
+        CourseSnapshot snapshot = reopened.snapshot();
+        assertEquals(49, snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            Course course = snapshot.get(i);
+            assertFalse(course.getName(), "课程10".equals(course.getName()));
+            assertEquals(course.getName(), !"课程21".equals(course.getName()), course.isSelected());
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void changesOutsideLoadAndCloseThrowIOException() throws Exception {
+        SqlCourseRepository repository = SqlCourseRepository.embedded(new File(folder.getRoot(), "score"), null);
+        Course course = new Course("高等数学", 5, 90, true, "2020-2021-1", Course.CourseType.MAJOR);
+        assertNotOpen(repository, course);
+
+        repository.load(new IgnoringReplay());
+        repository.added(course);
+        repository.close();
+        assertNotOpen(repository, course);
+    }
+
+    private static void assertNotOpen(SqlCourseRepository repository, Course course) {
+        try {
+            repository.toggled(0, course);
+            fail("未打开时修改应抛出IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("未打开或已关闭"));
+        }
+    }
+
+    private static final class IgnoringReplay implements CourseRepository.Replay {
+        @Override
+        public void add(Course course) {
+        }
+
+        @Override
+        public void remove(int index) {
+        }
+
+        @Override
+        public void update(int index, Course course) {
+        }
+
+        @Override
+        public void toggle(int index) {
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// 租约期间学生不被移除，空闲后按超时移除，读取失败时归还租约；全部学生共用固定数量的保存线程
+public class StudentRegistryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, AtomicInteger> closes = new ConcurrentHashMap<>();
+    private final AtomicInteger failingLoads = new AtomicInteger();
+    private StudentRegistry registry;
+
+    @After
+    public void tearDown() {
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    @Test
+    public void heldLeaseBlocksEviction() throws Exception {
+        registry = new StudentRegistry(GradingScales.load(), this::countingRepository);
+        StudentRegistry.Lease lease = registry.open("s1");
+        assertEquals(0, registry.evictIdle(0));
+        assertTrue(registry.isResident("s1"));
+
+        lease.close();
+        assertEquals(1, registry.evictIdle(0));
+        assertFalse(registry.isResident("s1"));
+        assertEquals(1, closes.get("s1").get());
+    }
+
+    @Test
+    public void closingLeaseTwiceReleasesOnce() throws Exception {
+        registry = new StudentRegistry(GradingScales.load(), this::countingRepository);
+        StudentRegistry.Lease first = registry.open("s1");
+        StudentRegistry.Lease second = registry.open("s1");
+        assertSame(first.calculator(), second.calculator());
+
+        first.close();
+        first.close();
+        assertEquals(0, registry.evictIdle(0));
+        second.close();
+        assertEquals(1, registry.evictIdle(0));
+    }
+
+    @Test
+    public void leaseIsReleasedWhenRequestFails() throws Exception {
+        registry = new StudentRegistry(GradingScales.load(), this::countingRepository);
+        try (StudentRegistry.Lease lease = registry.open("s1")) {
+            lease.calculator().addCourse(new Course("高等数学", 5, 90, true, "2020-2021-1", Course.CourseType.MAJOR));
+            throw new IllegalStateException("请求处理失败");
+        } catch (IllegalStateException expected) {
+            // 租约已在try-with-resources中归还
+        }
+        assertEquals(1, registry.evictIdle(0));
+    }
+
+    @Test
+    public void failedLoadIsNotKeptResident() throws Exception {
+        registry = new StudentRegistry(GradingScales.load(), this::countingRepository);
+        failingLoads.set(1);
+        try {
+            registry.open("s1");
+            fail("读取失败时应抛出IOException");
+        } catch (IOException expected) {
+            // 预期的读取失败
+        }
+        assertFalse(registry.isResident("s1"));
+        assertEquals(1, closes.get("s1").get());
+
+        try (StudentRegistry.Lease lease = registry.open("s1")) {
+            assertEquals(0, lease.calculator().snapshot().size());
+        }
+        assertTrue(registry.isResident("s1"));
+    }
+
+    @Test
+    public void idleStudentsAreEvictedInBackground() throws Exception {
+        registry = new StudentRegistry(GradingScales.load(), this::countingRepository);
+        registry.startIdleEviction(20, 10);
+        StudentRegistry.Lease lease = registry.open("s1");
+        registry.open("s2").close();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.isResident("s2") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(registry.isResident("s2"));
+        assertTrue("持有租约的学生不应被移除", registry.isResident("s1"));
+        lease.close();
+    }
+
+    @Test
+    public void excelStudentsShareSaveThreads() throws Exception {
+        File base = folder.newFolder("students");
+        registry = new StudentRegistry(GradingScales.load(), StudentRegistry.excelDirectory(base));
+        int students = 12;
+        for (int i = 0; i < students; i++) {
+            try (StudentRegistry.Lease lease = registry.open("s" + i)) {
+                lease.calculator().addCourse(new Course("课程" + i, 2, 80 + i, true, "2020-2021-1", Course.CourseType.MAJOR));
+            }
+        }
+        int saverThreads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("score-saver")) {
+                saverThreads++;
+            }
+        }
+        assertTrue("保存线程数不应随学生数量增长：" + saverThreads, saverThreads < students);
+
+        // 关闭时写出各学生的修改，之后重新打开能读到
+        registry.close();
+        registry = new StudentRegistry(GradingScales.load(), StudentRegistry.excelDirectory(base));
+        for (int i = 0; i < students; i++) {
+            try (StudentRegistry.Lease lease = registry.open("s" + i)) {
+                assertEquals(1, lease.calculator().snapshot().size());
+                assertEquals("课程" + i, lease.calculator().snapshot().get(0).getName());
+            }
+        }
+    }
+
+    private CourseRepository countingRepository(String studentId, ScheduledExecutorService saveExecutor) {
+        AtomicInteger closed = closes.computeIfAbsent(studentId, id -> new AtomicInteger());
+        return new DiscardingRepository() {
+            @Override
+            public void load(Replay replay) throws IOException {
+                if (failingLoads.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    throw new IOException("读取失败");
+                }
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.gpa.service;
+
+import com.gpa.model.Course;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+// 计算器测试共用的随机课程和统计结果比较
+final class TestCourses {
+    static final String[] SEMESTERS = {"2020-2021-1", "2020-2021-2", "2021-2022-1"};
+
+    private TestCourses() {
+    }
+
+    // 学分0.5-5，成绩40-100.5，约四分之三计入GPA，学期和类型随机
+    static Course randomCourse(Random random, String name) {
+        return new Course(name, 0.5 * (1 + random.nextInt(10)), 40 + random.nextInt(61) + (random.nextBoolean() ? 0.5 : 0),
+            random.nextInt(4) != 0, SEMESTERS[random.nextInt(SEMESTERS.length)],
+            Course.CourseType.values()[random.nextInt(Course.CourseType.values().length)]);
+    }
+
+    static void assertSummaryEquals(String message, GPASummary expected, GPASummary actual, double delta) {
+        assertEquals(message, expected.getAverageScore(), actual.getAverageScore(), delta);
+        for (int i = 0; i < expected.getScales().size(); i++) {
+            assertEquals(message + " scale " + i, expected.getGradePoint(i), actual.getGradePoint(i), delta);
+        }
+        for (Course.CourseType type : Course.CourseType.values()) {
+            assertEquals(message + " " + type, expected.getTypeAverageScore(type), actual.getTypeAverageScore(type), delta);
+        }
+    }
+}